@@ -0,0 +1,112 @@
+package com.github.vincentrussell;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end throughput of the get goal against a synthetic graph served by an in-process repository.  Every
+ * invocation starts with an empty local repository.  The nodes counter reports the time per node of the graph,
+ * whatever the number of classifiers; run with -prof gc for the allocation rate.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Warmup( iterations = 1 )
+@Measurement( iterations = 3 )
+public class GetMojoBenchmark {
+
+    @Param( {"100", "1000", "10000"} )
+    public int nodes;
+
+    @Param( {"4"} )
+    public int fanOut;
+
+    @Param( {"0"} )
+    public int latencyMillis;
+
+    @Param( {"5"} )
+    public int threads;
+
+    @Param( {"true"} )
+    public boolean collectOnly;
+
+    @Param( {"sources", "sources,javadoc"} )
+    public String classifiers;
+
+    private File workDir;
+    private File localRepositoryDir;
+    private SyntheticRepository repository;
+    private MojoHarness harness;
+    private GetMojo mojo;
+
+    /**
+     * Counts the nodes resolved in an iteration so that JMH reports the time per node.
+     */
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.OPERATIONS )
+    public static class Nodes {
+        public long nodes;
+
+        @Setup( Level.Iteration )
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup( Level.Trial )
+    public void setUpTrial() throws Exception {
+        workDir = Files.createTempDirectory( "get-mojo-benchmark" ).toFile();
+        localRepositoryDir = new File( workDir, "local" );
+        repository = new SyntheticRepository( new File( workDir, "remote" ), latencyMillis );
+        repository.generate( nodes, fanOut );
+        harness = new MojoHarness();
+        harness.start();
+    }
+
+    @Setup( Level.Invocation )
+    public void setUpInvocation() throws Exception {
+        FileUtils.deleteDirectory( localRepositoryDir );
+        File projectDir = new File( workDir, "project" );
+        FileUtils.deleteDirectory( projectDir );
+        projectDir.mkdirs();
+        mojo = harness.newGetMojo( projectDir, "<remoteRepositories>" + repository.getUrl() + "</remoteRepositories>\n"
+                + "<artifact>" + SyntheticRepository.GROUP_ID + ":" + SyntheticRepository.getArtifactId( 0 )
+                + ":1.0</artifact>\n"
+                + "<classifiers>" + classifiers + "</classifiers>\n"
+                + "<transitive>true</transitive>\n"
+                + "<threads>" + threads + "</threads>\n"
+                + "<collectOnly>" + collectOnly + "</collectOnly>\n"
+                + "<negativeCacheTtl>0</negativeCacheTtl>", localRepositoryDir );
+    }
+
+    @Benchmark
+    public void get(final Nodes counter) throws Exception {
+        mojo.execute();
+        counter.nodes += nodes;
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDownTrial() throws Exception {
+        harness.stop();
+        repository.close();
+        FileUtils.deleteDirectory( workDir );
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.vincentrussell;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+
+import java.io.File;
+import java.util.Collections;
+
+/**
+ * Configures {@link GetMojo} instances outside of a JUnit run the same way {@link GetSourcesMojoTest} does.
+ */
+public class MojoHarness extends AbstractMojoTestCase {
+
+    public void start() throws Exception {
+        setUp();
+    }
+
+    public void stop() throws Exception {
+        tearDown();
+    }
+
+    /**
+     * Create a mojo with the configuration that uses the local repository.  The remote repositories of the super
+     * pom are removed so that only the configured repositories are contacted.
+     */
+    public GetMojo newGetMojo(final File projectDir, final String configuration, final File localRepositoryDir)
+            throws Exception {
+        String pomTemplate = IOUtils.toString( getClass().getResourceAsStream( "/test-project-config-pom.xml" ),
+                "UTF-8" );
+        File pom = new File( projectDir, "pom.xml" );
+        FileUtils.write( pom, pomTemplate.replace( "REPLACE_ME", configuration ), "UTF-8" );
+
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setBaseDirectory( projectDir );
+        ProjectBuildingRequest configurationRequest = request.getProjectBuildingRequest();
+        configurationRequest.setRepositorySession( new DefaultRepositorySystemSession() );
+        MavenProject project = lookup( ProjectBuilder.class ).build( pom, configurationRequest ).getProject();
+        project.setRemoteArtifactRepositories( Collections.emptyList() );
+
+        MavenSession session = newMavenSession( project );
+        DefaultRepositorySystemSession repositorySession = (DefaultRepositorySystemSession) session.getRepositorySession();
+        repositorySession.setLocalRepositoryManager( new SimpleLocalRepositoryManagerFactory().newInstance(
+                repositorySession, new LocalRepository( localRepositoryDir ) ) );
+        ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy( true,
+                ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS, ArtifactRepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        session.getRequest().setLocalRepository( new MavenArtifactRepository( "local",
+                localRepositoryDir.toURI().toString(), new DefaultRepositoryLayout(), policy, policy ) );
+        return (GetMojo) lookupConfiguredMojo( session, newMojoExecution( "get" ) );
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.vincentrussell;
+
+import me.alexpanov.net.FreePortFinder;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * An in-process maven2 repository served by Jetty with the {@link GetSourcesMojoTest.NexusServlet}.  It holds a
+ * synthetic dependency graph where node i depends on nodes i * fanOut + 1 to i * fanOut + fanOut, and every
+ * request can be delayed to simulate a remote repository.
+ */
+public class SyntheticRepository implements Closeable {
+
+    static final String GROUP_ID = "com.github.vincentrussell.benchmark";
+
+    private final File baseDir;
+    private final int port = FreePortFinder.findFreeLocalPort();
+    private final Server server = new Server();
+    private final Random random = new Random( 1 );
+
+    public SyntheticRepository(final File baseDir, final int latencyMillis) throws Exception {
+        this.baseDir = baseDir;
+        ServerConnector httpConnector = new ServerConnector( server );
+        httpConnector.setPort( port );
+        ServletHandler servletHandler = new ServletHandler();
+        servletHandler.addServletWithMapping( new ServletHolder( new GetSourcesMojoTest.NexusServlet( baseDir ) {
+            @Override
+            protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+                    throws ServletException, IOException {
+                if ( latencyMillis > 0 ) {
+                    try {
+                        Thread.sleep( latencyMillis );
+                    } catch ( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                        throw new ServletException( e );
+                    }
+                }
+                super.doGet( request, response );
+            }
+        } ), "/repository/synthetic/*" );
+        server.setConnectors( new Connector[] {httpConnector} );
+        server.setHandler( servletHandler );
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + port + "/repository/synthetic/";
+    }
+
+    public static String getArtifactId(final int node) {
+        return "node-" + node;
+    }
+
+    /**
+     * Write the pom, the jar, the sources jar and the javadoc jar of every node of the graph.
+     */
+    public void generate(final int nodes, final int fanOut) throws IOException {
+        String pomTemplate = IOUtils.toString( getClass().getResourceAsStream( "/samplePom/pom.xml" ), "UTF-8" )
+                .replace( "<groupId>com.github.vincentrussell</groupId>", "<groupId>" + GROUP_ID + "</groupId>" );
+        for ( int node = 0; node < nodes; node++ ) {
+            StringBuilder dependencies = new StringBuilder();
+            for ( int child = node * fanOut + 1; child <= node * fanOut + fanOut && child < nodes; child++ ) {
+                dependencies.append( "      <dependency>\n        <groupId>" ).append( GROUP_ID )
+                        .append( "</groupId>\n        <artifactId>" ).append( getArtifactId( child ) )
+                        .append( "</artifactId>\n        <version>1.0</version>\n      </dependency>\n" );
+            }
+            String artifactId = getArtifactId( node );
+            File directory = Paths.get( baseDir.getAbsolutePath(), GROUP_ID.replace( '.', File.separatorChar ),
+                    artifactId, "1.0" ).toFile();
+            String pom = pomTemplate.replace( "$artifactId", artifactId ).replace( "$version", "1.0" )
+                    .replace( "$dependencies", dependencies.length() == 0 ? ""
+                            : "<dependencies>\n" + dependencies + "    </dependencies>" );
+            writeWithChecksum( new File( directory, artifactId + "-1.0.pom" ), pom.getBytes( "UTF-8" ) );
+            writeWithChecksum( new File( directory, artifactId + "-1.0.jar" ), randomBytes() );
+            writeWithChecksum( new File( directory, artifactId + "-1.0-sources.jar" ), randomBytes() );
+            writeWithChecksum( new File( directory, artifactId + "-1.0-javadoc.jar" ), randomBytes() );
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.stop();
+        } catch ( Exception e ) {
+            throw new IOException( e );
+        }
+    }
+
+    private void writeWithChecksum(final File file, final byte[] content) throws IOException {
+        FileUtils.writeByteArrayToFile( file, content );
+        FileUtils.write( new File( file.getPath() + ".sha1" ), Checksums.hash( file, "SHA-1" ), "UTF-8" );
+    }
+
+    private byte[] randomBytes() {
+        byte[] bytes = new byte[2000];
+        random.nextBytes( bytes );
+        return bytes;
+    }
+}
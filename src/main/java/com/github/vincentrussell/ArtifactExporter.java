@@ -0,0 +1,187 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Places resolved artifacts into an output directory.  The file is hard linked to the copy in the local
+ * repository when the file system allows it and copied from channel to channel otherwise.  Either way the file is
+ * first created under a temporary name and then moved into place, so exports of the same file don't race.
+ */
+public class ArtifactExporter {
+
+    /**
+     * How the exported files are laid out in the output directory.
+     */
+    public enum Layout {
+        /**
+         * Every file directly in the output directory.  When files of several groupIds have the same name, the
+         * names of all of them start with their groupId, whatever order they were exported in.
+         */
+        FLAT,
+        /**
+         * One directory per groupId.
+         */
+        GROUP,
+        /**
+         * The same layout as a maven2 repository.
+         */
+        REPOSITORY;
+
+        public static Layout fromString(final String value) {
+            return valueOf( value.trim().toUpperCase( Locale.ENGLISH ) );
+        }
+    }
+
+    private final File outputDirectory;
+    private final Layout layout;
+    private final AtomicInteger linked = new AtomicInteger();
+    private final AtomicInteger copied = new AtomicInteger();
+    private final AtomicInteger renamed = new AtomicInteger();
+    private final Map<String, Set<String>> flatGroupIds = new HashMap<>();
+
+    public ArtifactExporter(final File outputDirectory, final Layout layout) {
+        this.outputDirectory = outputDirectory;
+        this.layout = layout;
+    }
+
+    /**
+     * Place the file of the artifact into the output directory, replacing an earlier export of it.
+     */
+    public File export(final ArtifactCoordinate coordinate, final File file) throws IOException {
+        Path target = outputDirectory.toPath().resolve( layout == Layout.FLAT ? getFileName( coordinate )
+                : getPath( coordinate ) );
+        Files.createDirectories( target.getParent() );
+        Path tempFile = Files.createTempFile( target.getParent(), target.getFileName().toString(), ".tmp" );
+        try {
+            try {
+                Files.delete( tempFile );
+                Files.createLink( tempFile, file.toPath() );
+                linked.incrementAndGet();
+            } catch ( UnsupportedOperationException | FileSystemException e ) {
+                transfer( file.toPath(), tempFile );
+                copied.incrementAndGet();
+            }
+            if ( layout == Layout.FLAT ) {
+                target = placeFlat( coordinate, tempFile );
+            } else {
+                move( tempFile, target );
+            }
+        } finally {
+            Files.deleteIfExists( tempFile );
+        }
+        return target.toFile();
+    }
+
+    public int getLinkedCount() {
+        return linked.get();
+    }
+
+    public int getCopiedCount() {
+        return copied.get();
+    }
+
+    /**
+     * The number of files of the flat layout whose name starts with their groupId because another groupId has a
+     * file of the same name.
+     */
+    public int getRenamedCount() {
+        return renamed.get();
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    String getPath(final ArtifactCoordinate coordinate) {
+        String fileName = getFileName( coordinate );
+        switch ( layout ) {
+            case GROUP:
+                return coordinate.getGroupId() + "/" + fileName;
+            case REPOSITORY:
+                return coordinate.getGroupId().replace( '.', '/' ) + "/" + coordinate.getArtifactId() + "/"
+                        + coordinate.getVersion() + "/" + fileName;
+            default:
+                return fileName;
+        }
+    }
+
+    private static String getFileName(final ArtifactCoordinate coordinate) {
+        return coordinate.getArtifactId() + "-" + coordinate.getVersion()
+                + ( StringUtils.isEmpty( coordinate.getClassifier() ) ? "" : "-" + coordinate.getClassifier() )
+                + "." + coordinate.getExtension();
+    }
+
+    /**
+     * Move an exported file into the flat layout.  The first groupId with a file name gets the plain name; once a
+     * second groupId exports a file of the same name, the file of the first one is moved to the name that starts
+     * with its groupId and every later file of that name gets such a name as well.  The names are chosen and the
+     * files moved while holding a lock, so the layout doesn't depend on the order of the exports.
+     */
+    private Path placeFlat(final ArtifactCoordinate coordinate, final Path tempFile) throws IOException {
+        String fileName = getFileName( coordinate );
+        Path directory = outputDirectory.toPath();
+        synchronized ( flatGroupIds ) {
+            Set<String> groupIds = flatGroupIds.computeIfAbsent( fileName, name -> new TreeSet<>() );
+            String first = groupIds.isEmpty() ? null : groupIds.iterator().next();
+            boolean added = groupIds.add( coordinate.getGroupId() );
+            Path target;
+            if ( groupIds.size() == 1 ) {
+                target = directory.resolve( fileName );
+            } else {
+                if ( added && groupIds.size() == 2 ) {
+                    Path plain = directory.resolve( fileName );
+                    if ( Files.exists( plain ) ) {
+                        move( plain, directory.resolve( first + "-" + fileName ) );
+                    }
+                    renamed.incrementAndGet();
+                }
+                if ( added ) {
+                    renamed.incrementAndGet();
+                }
+                target = directory.resolve( coordinate.getGroupId() + "-" + fileName );
+            }
+            move( tempFile, target );
+            return target;
+        }
+    }
+
+    private static void transfer(final Path source, final Path target) throws IOException {
+        try ( FileChannel in = FileChannel.open( source, StandardOpenOption.READ );
+              FileChannel out = FileChannel.open( target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                      StandardOpenOption.TRUNCATE_EXISTING ) ) {
+            long size = in.size();
+            long position = 0;
+            while ( position < size ) {
+                position += in.transferTo( position, size - position, out );
+            }
+        }
+    }
+
+    /**
+     * Move a file over the target in one step, so that a reader never sees the target missing.
+     */
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move( source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+        } catch ( AtomicMoveNotSupportedException e ) {
+            Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.vincentrussell;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies downloaded files against the SHA-512, SHA-256 and SHA-1 checksum files of the repository on a pool of
+ * its own, so that hashing doesn't hold up the downloads.  Every available checksum is computed in a single read
+ * of the file.  A file that doesn't match one of its checksums is moved to the quarantine directory.
+ */
+public class ChecksumVerifier {
+
+    /**
+     * The algorithms, strongest first, and the extensions of their checksum files.
+     */
+    private static final Map<String, String> ALGORITHMS = new LinkedHashMap<>();
+
+    static {
+        ALGORITHMS.put( "SHA-512", "sha512" );
+        ALGORITHMS.put( "SHA-256", "sha256" );
+        ALGORITHMS.put( "SHA-1", "sha1" );
+    }
+
+    /**
+     * The outcome of the verification of a file.
+     */
+    public enum Outcome {
+        /**
+         * The file matches all of its checksum files.
+         */
+        VERIFIED,
+        /**
+         * The repository has no checksum file for the file.
+         */
+        UNVERIFIED,
+        /**
+         * The file doesn't match a checksum file and was moved to the quarantine directory.
+         */
+        QUARANTINED
+    }
+
+    /**
+     * Gets the checksum files of a file from the repository it was downloaded from.
+     */
+    public interface ChecksumSource {
+        /**
+         * @param extension the extension of the checksum file, e.g. sha256
+         * @return the downloaded checksum file or null if the repository doesn't have it
+         */
+        File get(String extension) throws IOException;
+    }
+
+    /**
+     * Called with a file once it is verified or found to have no checksum files.
+     */
+    public interface Listener {
+        void verified(File file) throws IOException;
+    }
+
+    /**
+     * What the verification of a file found and what it cost.
+     */
+    public static final class Result {
+
+        private final String key;
+        private final Outcome outcome;
+        private final List<String> algorithms;
+        private final String mismatch;
+        private final File quarantinedFile;
+        private final long elapsedNanos;
+        private final long bytes;
+
+        Result(final String key, final Outcome outcome, final List<String> algorithms, final String mismatch,
+               final File quarantinedFile, final long elapsedNanos, final long bytes) {
+            this.key = key;
+            this.outcome = outcome;
+            this.algorithms = algorithms;
+            this.mismatch = mismatch;
+            this.quarantinedFile = quarantinedFile;
+            this.elapsedNanos = elapsedNanos;
+            this.bytes = bytes;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * The algorithms the file was checked with.
+         */
+        public List<String> getAlgorithms() {
+            return algorithms;
+        }
+
+        /**
+         * The algorithm whose checksum didn't match or null.
+         */
+        public String getMismatch() {
+            return mismatch;
+        }
+
+        public File getQuarantinedFile() {
+            return quarantinedFile;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private final File baseDir;
+    private final File quarantineDirectory;
+    private final ExecutorService executorService;
+
+    /**
+     * @param baseDir             the local repository, quarantined files keep their path relative to it
+     * @param quarantineDirectory where the files that don't match are moved
+     * @param threads             the number of files hashed at the same time
+     */
+    public ChecksumVerifier(final File baseDir, final File quarantineDirectory, final int threads) {
+        this.baseDir = baseDir;
+        this.quarantineDirectory = quarantineDirectory;
+        this.executorService = Executors.newFixedThreadPool( Math.max( 1, threads ),
+                new ThreadFactoryBuilder().setNameFormat( "get-verifier-%d" ).setDaemon( true ).build() );
+    }
+
+    /**
+     * Queue the verification of a file.
+     *
+     * @param listener called on the verifier thread unless the file is quarantined
+     */
+    public Future<Result> submit(final String key, final File file, final ChecksumSource checksumSource,
+                                 final Listener listener) {
+        return executorService.submit( () -> {
+            Result result = verify( key, file, checksumSource );
+            if ( result.getOutcome() != Outcome.QUARANTINED ) {
+                listener.verified( file );
+            }
+            return result;
+        } );
+    }
+
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private Result verify(final String key, final File file, final ChecksumSource checksumSource)
+            throws IOException {
+        long start = System.nanoTime();
+        Map<String, String> expected = new LinkedHashMap<>();
+        for ( Map.Entry<String, String> algorithm : ALGORITHMS.entrySet() ) {
+            File checksumFile = new File( file.getPath() + "." + algorithm.getValue() );
+            if ( !checksumFile.isFile() ) {
+                checksumFile = checksumSource.get( algorithm.getValue() );
+            }
+            if ( checksumFile != null && checksumFile.isFile() ) {
+                expected.put( algorithm.getKey(), Checksums.readChecksumFile( checksumFile ) );
+            }
+        }
+        long bytes = file.length();
+        if ( expected.isEmpty() ) {
+            return new Result( key, Outcome.UNVERIFIED, Collections.<String>emptyList(), null, null,
+                    System.nanoTime() - start, bytes );
+        }
+        List<String> algorithms = new ArrayList<>( expected.keySet() );
+        Map<String, String> actual = Checksums.hash( file, algorithms );
+        for ( String algorithm : algorithms ) {
+            if ( !expected.get( algorithm ).equals( actual.get( algorithm ) ) ) {
+                File quarantinedFile = quarantine( file );
+                return new Result( key, Outcome.QUARANTINED, algorithms, algorithm, quarantinedFile,
+                        System.nanoTime() - start, bytes );
+            }
+        }
+        return new Result( key, Outcome.VERIFIED, algorithms, null, null, System.nanoTime() - start, bytes );
+    }
+
+    private File quarantine(final File file) throws IOException {
+        Path source = file.getAbsoluteFile().toPath();
+        Path base = baseDir.getAbsoluteFile().toPath();
+        Path target = quarantineDirectory.toPath().resolve( source.startsWith( base )
+                ? base.relativize( source ).toString() : source.getFileName().toString() );
+        Files.createDirectories( target.getParent() );
+        Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
+        return target.toFile();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.vincentrussell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for the checksum files that sit next to the artifacts in a maven2 repository.
+ */
+public final class Checksums {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Checksums() {
+    }
+
+    /**
+     * Compute the lower case hex digest of the file.
+     */
+    public static String hash(final File file, final String algorithm) throws IOException {
+        return hash( file, Collections.singletonList( algorithm ) ).get( algorithm );
+    }
+
+    /**
+     * Compute the lower case hex digests of the file with every algorithm, reading the file once.
+     */
+    public static Map<String, String> hash(final File file, final List<String> algorithms) throws IOException {
+        List<MessageDigest> messageDigests = new ArrayList<>( algorithms.size() );
+        for ( String algorithm : algorithms ) {
+            try {
+                messageDigests.add( MessageDigest.getInstance( algorithm ) );
+            } catch ( NoSuchAlgorithmException e ) {
+                throw new IOException( "Unsupported checksum algorithm " + algorithm, e );
+            }
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try ( InputStream inputStream = Files.newInputStream( file.toPath() ) ) {
+            int read;
+            while ( ( read = inputStream.read( buffer ) ) != -1 ) {
+                for ( MessageDigest messageDigest : messageDigests ) {
+                    messageDigest.update( buffer, 0, read );
+                }
+            }
+        }
+        Map<String, String> digests = new LinkedHashMap<>();
+        for ( int i = 0; i < algorithms.size(); i++ ) {
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : messageDigests.get( i ).digest() ) {
+                hex.append( String.format( "%02x", b ) );
+            }
+            digests.put( algorithms.get( i ), hex.toString() );
+        }
+        return digests;
+    }
+
+    /**
+     * Read the digest from a checksum file.  Some tools write the file name after the digest so only the first
+     * token is returned.
+     */
+    public static String readChecksumFile(final File checksumFile) throws IOException {
+        String content = new String( Files.readAllBytes( checksumFile.toPath() ), StandardCharsets.UTF_8 ).trim();
+        int whitespace = content.indexOf( ' ' );
+        return ( whitespace > 0 ? content.substring( 0, whitespace ) : content ).toLowerCase();
+    }
+
+    /**
+     * Whether the file matches its .sha1 or .md5 checksum file.  A file without a checksum file is considered
+     * valid.
+     */
+    public static boolean matchesChecksumFile(final File file) throws IOException {
+        return matchesChecksumFile( file, new File( file.getPath() + ".sha1" ).isFile(),
+                new File( file.getPath() + ".md5" ).isFile() );
+    }
+
+    /**
+     * Whether the file matches its .sha1 or .md5 checksum file when it is already known which of them exist.
+     */
+    public static boolean matchesChecksumFile(final File file, final boolean hasSha1, final boolean hasMd5)
+            throws IOException {
+        if ( hasSha1 ) {
+            return readChecksumFile( new File( file.getPath() + ".sha1" ) ).equals( hash( file, "SHA-1" ) );
+        }
+        if ( hasMd5 ) {
+            return readChecksumFile( new File( file.getPath() + ".md5" ) ).equals( hash( file, "MD5" ) );
+        }
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.vincentrussell;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Prunes the dependency graph while it is collected, so that the poms and the artifacts of a dependency that is
+ * filtered out, and of everything below it, are never requested.  A dependency is kept when its
+ * groupId:artifactId matches one of the includes, if there are any, and none of the excludes, its scope is one of
+ * the scopes, if there are any, and it is no deeper than the maximum depth, if there is one.  Patterns are of the
+ * form groupId[:artifactId] where * matches any characters.
+ */
+public final class DependencyGraphFilter implements DependencySelector {
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final Set<String> scopes;
+    private final int maxDepth;
+    private final int depth;
+    private final List<Pattern> includePatterns;
+    private final List<Pattern> excludePatterns;
+
+    /**
+     * @param maxDepth the depth of the deepest dependencies that are kept, 1 for the direct dependencies of the
+     *                 root, or 0 for no limit
+     */
+    public DependencyGraphFilter(final List<String> includes, final List<String> excludes,
+                                 final Set<String> scopes, final int maxDepth) {
+        this.includes = trim( includes );
+        this.excludes = trim( excludes );
+        this.scopes = lowerCase( scopes );
+        this.maxDepth = maxDepth;
+        this.depth = 0;
+        this.includePatterns = compile( this.includes );
+        this.excludePatterns = compile( this.excludes );
+    }
+
+    private DependencyGraphFilter(final DependencyGraphFilter parent) {
+        this.includes = parent.includes;
+        this.excludes = parent.excludes;
+        this.scopes = parent.scopes;
+        this.maxDepth = parent.maxDepth;
+        this.depth = parent.depth + 1;
+        this.includePatterns = parent.includePatterns;
+        this.excludePatterns = parent.excludePatterns;
+    }
+
+    /**
+     * Whether the filter removes anything from the graph.
+     */
+    public boolean isActive() {
+        return !includes.isEmpty() || !excludes.isEmpty() || !scopes.isEmpty() || maxDepth > 0;
+    }
+
+    @Override
+    public boolean selectDependency(final Dependency dependency) {
+        if ( maxDepth > 0 && depth > maxDepth ) {
+            return false;
+        }
+        if ( !scopes.isEmpty() ) {
+            String scope = dependency.getScope() == null || dependency.getScope().isEmpty()
+                    ? "compile" : dependency.getScope().toLowerCase( Locale.ENGLISH );
+            if ( !scopes.contains( scope ) ) {
+                return false;
+            }
+        }
+        Artifact artifact = dependency.getArtifact();
+        String coordinate = artifact.getGroupId() + ":" + artifact.getArtifactId();
+        return ( includePatterns.isEmpty() || matches( includePatterns, coordinate ) )
+                && !matches( excludePatterns, coordinate );
+    }
+
+    @Override
+    public DependencySelector deriveChildSelector(final DependencyCollectionContext context) {
+        if ( maxDepth <= 0 ) {
+            return this;
+        }
+        return new DependencyGraphFilter( this );
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if ( this == o ) {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() ) {
+            return false;
+        }
+        DependencyGraphFilter that = (DependencyGraphFilter) o;
+        return maxDepth == that.maxDepth && depth == that.depth && includes.equals( that.includes )
+                && excludes.equals( that.excludes ) && scopes.equals( that.scopes );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( includes, excludes, scopes, maxDepth, depth );
+    }
+
+    /**
+     * A description of the filter that is stable between runs.
+     */
+    @Override
+    public String toString() {
+        return "includes=" + includes + " excludes=" + excludes + " scopes=" + scopes + " maxDepth=" + maxDepth;
+    }
+
+    private static boolean matches(final List<Pattern> patterns, final String coordinate) {
+        for ( Pattern pattern : patterns ) {
+            if ( pattern.matcher( coordinate ).matches() ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(final List<String> patterns) {
+        List<Pattern> compiled = new ArrayList<>( patterns.size() );
+        for ( String pattern : patterns ) {
+            String[] tokens = pattern.split( ":", -1 );
+            if ( tokens.length > 2 ) {
+                throw new IllegalArgumentException( "Invalid pattern " + pattern
+                        + ", it must be of the form groupId[:artifactId]" );
+            }
+            compiled.add( Pattern.compile( toRegex( tokens[0] ) + ":"
+                    + ( tokens.length == 2 ? toRegex( tokens[1] ) : ".*" ) ) );
+        }
+        return compiled;
+    }
+
+    private static String toRegex(final String glob) {
+        String[] parts = glob.split( "\\*", -1 );
+        StringBuilder regex = new StringBuilder();
+        for ( int i = 0; i < parts.length; i++ ) {
+            if ( i > 0 ) {
+                regex.append( ".*" );
+            }
+            regex.append( Pattern.quote( parts[i] ) );
+        }
+        return regex.toString();
+    }
+
+    private static List<String> trim(final List<String> values) {
+        List<String> trimmed = new ArrayList<>();
+        if ( values != null ) {
+            for ( String value : values ) {
+                if ( value != null && !value.trim().isEmpty() ) {
+                    trimmed.add( value.trim() );
+                }
+            }
+        }
+        return Collections.unmodifiableList( trimmed );
+    }
+
+    private static Set<String> lowerCase(final Set<String> values) {
+        Set<String> lowerCase = new TreeSet<>();
+        if ( values != null ) {
+            for ( String value : values ) {
+                if ( value != null && !value.trim().isEmpty() ) {
+                    lowerCase.add( value.trim().toLowerCase( Locale.ENGLISH ) );
+                }
+            }
+        }
+        return Collections.unmodifiableSet( lowerCase );
+    }
+}
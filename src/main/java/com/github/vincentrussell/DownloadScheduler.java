@@ -0,0 +1,163 @@
+package com.github.vincentrussell;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runs the resolutions of artifacts on a fixed number of workers, interleaving small artifacts with large ones.
+ * An artifact that is expected to be at least {@code largeBytes} long runs in the large lane, which holds at most
+ * half of the workers, and the workers alternate between the lanes, so the small artifacts queued behind a few
+ * large javadoc jars keep moving.
+ * <p>
+ * The expected size of an artifact is the size that an earlier run recorded for it or else the average size of the
+ * artifacts with the same classifier and extension downloaded so far in the run.  An artifact of unknown size is
+ * treated as small.
+ */
+public class DownloadScheduler {
+
+    private final long largeBytes;
+    private final int largeSlots;
+    private final ToLongFunction<ArtifactCoordinate> knownSizes;
+    private final ExecutorService workers;
+    private final Deque<Runnable> small = new ArrayDeque<>();
+    private final Deque<Runnable> large = new ArrayDeque<>();
+    private final ConcurrentMap<String, Average> averages = new ConcurrentHashMap<>();
+    private final AtomicInteger largeCount = new AtomicInteger();
+    private int runningLarge;
+    private int deferred;
+    private boolean largeTurn;
+
+    /**
+     * @param threads    the number of workers
+     * @param largeBytes the expected size from which an artifact runs in the large lane, or 0 for a single lane
+     * @param knownSizes the size an earlier run recorded for an artifact, or a negative number
+     */
+    public DownloadScheduler(final int threads, final long largeBytes,
+                             final ToLongFunction<ArtifactCoordinate> knownSizes) {
+        int workerCount = Math.max( 1, threads );
+        this.largeBytes = largeBytes;
+        this.largeSlots = Math.max( 1, workerCount / 2 );
+        this.knownSizes = knownSizes;
+        this.workers = Executors.newFixedThreadPool( workerCount,
+                new ThreadFactoryBuilder().setNameFormat( "get-resolver-%d" ).setDaemon( true ).build() );
+    }
+
+    /**
+     * Queue the resolution of an artifact.  Every queued task hands one turn to the workers, which run whichever
+     * task is next in the lanes when the turn comes up.
+     */
+    public void execute(final ArtifactCoordinate artifactCoordinate, final Runnable task) {
+        boolean isLarge = largeBytes > 0 && getExpectedSize( artifactCoordinate ) >= largeBytes;
+        synchronized ( this ) {
+            ( isLarge ? large : small ).add( task );
+        }
+        if ( isLarge ) {
+            largeCount.incrementAndGet();
+        }
+        workers.execute( this::runNext );
+    }
+
+    /**
+     * Record the size of a downloaded artifact for the estimates of the artifacts queued after it.
+     */
+    public void recordSize(final ArtifactCoordinate artifactCoordinate, final long bytes) {
+        averages.computeIfAbsent( getKind( artifactCoordinate ), kind -> new Average() ).add( bytes );
+    }
+
+    /**
+     * The number of artifacts that ran in the large lane.
+     */
+    public int getLargeCount() {
+        return largeCount.get();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    long getExpectedSize(final ArtifactCoordinate artifactCoordinate) {
+        long known = knownSizes.applyAsLong( artifactCoordinate );
+        if ( known >= 0 ) {
+            return known;
+        }
+        Average average = averages.get( getKind( artifactCoordinate ) );
+        return average != null ? average.get() : -1;
+    }
+
+    /**
+     * Run the next task: a large one on its turn while the large lane has room, a small one otherwise.  A turn that
+     * finds only large tasks with the lane full is handed back when a large task finishes.
+     */
+    private void runNext() {
+        Runnable task;
+        boolean isLarge;
+        synchronized ( this ) {
+            if ( !large.isEmpty() && runningLarge < largeSlots && ( small.isEmpty() || largeTurn ) ) {
+                task = large.poll();
+                isLarge = true;
+                runningLarge++;
+                largeTurn = false;
+            } else if ( !small.isEmpty() ) {
+                task = small.poll();
+                isLarge = false;
+                largeTurn = true;
+            } else {
+                if ( !large.isEmpty() ) {
+                    deferred++;
+                }
+                return;
+            }
+        }
+        try {
+            task.run();
+        } finally {
+            if ( isLarge ) {
+                boolean resume;
+                synchronized ( this ) {
+                    runningLarge--;
+                    resume = deferred > 0;
+                    if ( resume ) {
+                        deferred--;
+                    }
+                }
+                if ( resume ) {
+                    try {
+                        workers.execute( this::runNext );
+                    } catch ( RejectedExecutionException e ) {
+                        // shut down, the remaining tasks are dropped
+                    }
+                }
+            }
+        }
+    }
+
+    private static String getKind(final ArtifactCoordinate artifactCoordinate) {
+        return ( artifactCoordinate.getClassifier() == null ? "" : artifactCoordinate.getClassifier() ) + ":"
+                + artifactCoordinate.getExtension();
+    }
+
+    private static final class Average {
+
+        private long count;
+        private long total;
+
+        synchronized void add(final long bytes) {
+            count++;
+            total += bytes;
+        }
+
+        synchronized long get() {
+            return count > 0 ? total / count : -1;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.github.vincentrussell;
 
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.artifact.handler.ArtifactHandler;
 import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -31,14 +34,59 @@ import org.apache.maven.shared.transfer.dependencies.DependableCoordinate;
 import org.apache.maven.shared.transfer.dependencies.resolve.DependencyResolver;
 import org.apache.maven.shared.transfer.dependencies.resolve.DependencyResolverException;
 import org.codehaus.plexus.util.StringUtils;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.DependencyVisitor;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.MetadataRequest;
+import org.eclipse.aether.resolution.MetadataResult;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.graph.selector.AndDependencySelector;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Goal for bulk import into remote repository
@@ -58,12 +106,16 @@ public class GetMojo extends AbstractMojo {
     MavenProject project;
 
     /**
-     * Alternative location to upload artifacts from.  This directory must be in
-     * the same format as an maven2 local repository.
+     * A directory to fill with every resolved artifact, its pom and their .sha1 and .md5 files in the maven2
+     * repository layout, together with a maven-metadata.xml per groupId:artifactId, so that it can be used as an
+     * offline mirror.  Files are hard linked from the local repository when possible and an existing mirror is
+     * added to.
      */
     @Parameter( property = "repositoryBase", required = false )
     private File repositoryBase;
 
+    private RepositoryMirror repositoryMirror;
+
     @Parameter( defaultValue = "${session}", readonly = true, required = true )
     private MavenSession session;
 
@@ -73,6 +125,12 @@ public class GetMojo extends AbstractMojo {
     @Component
     private RepositorySystem repositorySystem;
 
+    /**
+     * The aether repository system used to collect the dependency graph without resolving it.
+     */
+    @Component
+    private org.eclipse.aether.RepositorySystem repoSystem;
+
     @Component
     private ArtifactResolver artifactResolver;
 
@@ -97,7 +155,308 @@ public class GetMojo extends AbstractMojo {
     @Parameter( property = "transitive", defaultValue = "true" )
     private boolean transitive = true;
 
-    private DefaultDependableCoordinate coordinate = new DefaultDependableCoordinate();
+    /**
+     * The number of threads used to resolve the classifier artifacts of the dependencies when
+     * {@link #transitive} is true.
+     */
+    @Parameter( property = "threads", defaultValue = "5" )
+    private int threads = 5;
+
+    /**
+     * The number of dependencies that wait for or are being resolved at a time when {@link #transitive} is true,
+     * or 0 for four times {@link #threads}.  The dependency graphs are walked while their nodes are resolved and the
+     * walk waits whenever this many nodes are in flight.
+     */
+    @Parameter( property = "queueCapacity", defaultValue = "0" )
+    private int queueCapacity;
+
+    /**
+     * The time spent collecting the dependency graphs, summed over the threads that collected them.
+     */
+    private final AtomicLong graphNanos = new AtomicLong();
+
+    /**
+     * The number of requests to one repository host that run at the same time, or 0 for {@link #threads}.  An
+     * artifact request waits for its turn before it is handed to the resolver, and every transfer of a dependency
+     * graph waits for its turn when it starts.  The requests share the keep-alive connection pool of the transport,
+     * so this should not be larger than its pool per host, 20 for the wagon transport and 50 for the http transport.
+     */
+    @Parameter( property = "maxConnectionsPerHost", defaultValue = "0" )
+    private int maxConnectionsPerHost;
+
+    /**
+     * The number of requests to all repository hosts together that run at the same time, or 0 for no limit beyond
+     * {@link #threads}.  Every transfer of a dependency graph counts as one request.
+     */
+    @Parameter( property = "maxConcurrentDownloads", defaultValue = "0" )
+    private int maxConcurrentDownloads;
+
+    /**
+     * The number of bytes per second that all transfers together may read, or 0 for no limit.
+     */
+    @Parameter( property = "maxBytesPerSecond", defaultValue = "0" )
+    private long maxBytesPerSecond;
+
+    /**
+     * The expected size in bytes from which a classifier artifact is resolved in the large lane, which holds at
+     * most half of the {@link #threads}, so that small artifacts are never stuck behind large ones.  The expected
+     * size is the size recorded by an earlier {@link #incremental} run or the average size of the artifacts with the
+     * same classifier resolved so far.  Set to 0 to resolve all artifacts in one lane.
+     */
+    @Parameter( property = "largeDownloadBytes", defaultValue = "1048576" )
+    private long largeDownloadBytes = 1048576;
+
+    /**
+     * How long to wait for a connection to a repository, in milliseconds.  The transport default is used if not
+     * set.
+     */
+    @Parameter( property = "connectTimeout" )
+    private Integer connectTimeout;
+
+    /**
+     * How long to wait for the data of a request, in milliseconds.  The transport default is used if not set.
+     */
+    @Parameter( property = "readTimeout" )
+    private Integer readTimeout;
+
+    private HostConnectionPool hostConnectionPool;
+
+    /**
+     * How many times an artifact is retried after a transient failure of its transfer: a server error, a 408 or
+     * 429 response, a timeout or a reset connection.  A failure of the local file system is not retried.  A retry
+     * waits a random time of up to {@link #retryBackoffMillis}, doubled for every further retry, without holding a
+     * resolver thread.
+     */
+    @Parameter( property = "retries", defaultValue = "2" )
+    private int retries = 2;
+
+    /**
+     * The longest wait before the first retry of an artifact, in milliseconds.
+     */
+    @Parameter( property = "retryBackoffMillis", defaultValue = "500" )
+    private long retryBackoffMillis = 500;
+
+    /**
+     * The number of transient failures in a row after which a repository is not sent any more requests for
+     * {@link #circuitBreakerCoolDownMillis}, or 0 to keep sending requests to it.
+     */
+    @Parameter( property = "circuitBreakerThreshold", defaultValue = "5" )
+    private int circuitBreakerThreshold = 5;
+
+    /**
+     * How long a repository is skipped after {@link #circuitBreakerThreshold} failures before a single request is
+     * sent to it again, in milliseconds.
+     */
+    @Parameter( property = "circuitBreakerCoolDownMillis", defaultValue = "60000" )
+    private long circuitBreakerCoolDownMillis = 60000;
+
+    private RetryPolicy retryPolicy;
+
+    private RepositoryCircuitBreaker circuitBreaker;
+
+    private ScheduledExecutorService retryScheduler;
+
+    private static final String RETRIES_COUNTER = "retries after transient failures";
+
+    /**
+     * Use release artifacts that are already in the local repository without contacting the remote repositories.
+     * The local file is only used when it matches its checksum file, if there is one.
+     */
+    @Parameter( property = "preferLocal", defaultValue = "true" )
+    private boolean preferLocal = true;
+
+    /**
+     * Try the remote repositories one at a time, ordered by the latency and the hit rate they had so far in the
+     * run, instead of in the configured order.
+     */
+    @Parameter( property = "repositoryScheduling", defaultValue = "true" )
+    private boolean repositoryScheduling = true;
+
+    private final RepositoryScheduler repositoryScheduler = new RepositoryScheduler();
+
+    /**
+     * Write the timing and throughput figures of the run to extended-dependency-metrics.json in
+     * {@link #outputDirectory}.  A summary is always logged at the end of the run.
+     */
+    @Parameter( property = "metricsReport", defaultValue = "false" )
+    private boolean metricsReport;
+
+    private final ResolutionMetrics metrics = new ResolutionMetrics();
+
+    /**
+     * The update policy of the remote repositories: always, daily, never or interval:minutes.
+     */
+    @Parameter( property = "updatePolicy", defaultValue = ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS )
+    private String updatePolicy = ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS;
+
+    /**
+     * The number of minutes a classifier artifact that could not be found in any of the repositories is not
+     * requested again.  Set to 0 to always request it.
+     */
+    @Parameter( property = "negativeCacheTtl", defaultValue = "1440" )
+    private int negativeCacheTtl = 1440;
+
+    /**
+     * The number of minutes the maven-metadata.xml of a SNAPSHOT version that an earlier run left in the local
+     * repository is used without requesting it again.  Set to 0 to request it once every run.  Within a run the
+     * metadata of every repository and version is always requested at most once.
+     */
+    @Parameter( property = "snapshotMetadataTtl", defaultValue = "0" )
+    private int snapshotMetadataTtl;
+
+    private SnapshotMetadataCache snapshotMetadataCache;
+
+    /**
+     * Request the artifacts that were previously recorded as missing again.
+     */
+    @Parameter( property = "refreshNegativeCache", defaultValue = "false" )
+    private boolean refreshNegativeCache;
+
+    /**
+     * The file where the artifacts that could not be found are recorded.  Defaults to
+     * .cache/extended-dependency-plugin/missing.properties in the local repository.
+     */
+    @Parameter( property = "negativeCacheFile" )
+    private File negativeCacheFile;
+
+    /**
+     * Record the resolved dependency graph of every root artifact in a manifest.  When the root artifact has a
+     * release version and the repositories are the same, a later run reuses the graph instead of collecting it
+     * again and skips the artifacts whose files are unchanged.  Graphs that contain version ranges may change
+     * over time; run without this option to pick up new versions.
+     */
+    @Parameter( property = "incremental", defaultValue = "false" )
+    private boolean incremental;
+
+    /**
+     * The directory of the manifests of {@link #incremental} runs.  Defaults to
+     * .cache/extended-dependency-plugin/manifests in the local repository.
+     */
+    @Parameter( property = "manifestDirectory" )
+    private File manifestDirectory;
+
+    /**
+     * Index the local repository directories of the groupIds of the dependency graph before resolving the
+     * artifacts, so that whether an artifact is already present is answered from memory.  The index is kept on
+     * disk and only the version directories that changed since the last run are listed again.
+     */
+    @Parameter( property = "localIndex", defaultValue = "false" )
+    private boolean localIndex;
+
+    /**
+     * The file of the {@link #localIndex}.  Defaults to .cache/extended-dependency-plugin/local-index in the
+     * local repository.
+     */
+    @Parameter( property = "localIndexFile" )
+    private File localIndexFile;
+
+    private LocalRepositoryIndex localRepositoryIndex;
+
+    private final AtomicLong localIndexNanos = new AtomicLong();
+
+    /**
+     * Coordinate with the other processes that use the same local repository: an artifact is downloaded by one
+     * process at a time and the processes that waited for it use the downloaded file instead of downloading it
+     * again.  The locks are files in .cache/extended-dependency-plugin/locks in the local repository.
+     */
+    @Parameter( property = "sharedLocalRepository", defaultValue = "false" )
+    private boolean sharedLocalRepository;
+
+    private ResolutionLocks resolutionLocks;
+
+    private final AtomicInteger coalescedCount = new AtomicInteger();
+
+    /**
+     * The resolutions that are running.  Requests for the same artifact wait for them instead of resolving the
+     * artifact again.  A resolution is removed once it completes, so the results don't stay in memory for the run.
+     */
+    private final ConcurrentMap<String, CompletableFuture<ResolvedArtifact>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The artifacts that were resolved in the run.  A later request for one of them only looks it up again in the
+     * local repository and doesn't export or bundle it a second time.
+     */
+    private final Set<String> resolvedKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Verify every artifact downloaded in the run, including the ones the dependency resolver downloaded, against
+     * the SHA-512, SHA-256 and SHA-1 checksum files of the repository it came from.  Files are hashed on a separate
+     * pool of {@link #threads} workers so that the downloads carry on.  An artifact that doesn't match is moved to
+     * .cache/extended-dependency-plugin/quarantine in the local repository and is not exported or bundled.
+     */
+    @Parameter( property = "verifyChecksums", defaultValue = "false" )
+    private boolean verifyChecksums;
+
+    /**
+     * Fail the build when an artifact doesn't match its checksum files or couldn't be verified, with or without
+     * {@link #transitive}.  When false such artifacts are only quarantined and reported.
+     */
+    @Parameter( property = "failOnChecksumMismatch", defaultValue = "true" )
+    private boolean failOnChecksumMismatch;
+
+    private ChecksumVerifier checksumVerifier;
+
+    private final Map<String, Future<ChecksumVerifier.Result>> verifications = new ConcurrentHashMap<>();
+
+    /**
+     * The artifacts that were verified but couldn't be exported, bundled or mirrored afterwards.
+     */
+    private final Map<String, IOException> publishFailures = new ConcurrentHashMap<>();
+
+    /**
+     * The artifacts that were quarantined or couldn't be verified, which fail the build once the run is done.
+     */
+    private final Set<String> checksumFailures = new LinkedHashSet<>();
+
+    /**
+     * When the run started, less a second for file systems that keep the last modified time in seconds.
+     */
+    private final long runStartMillis = System.currentTimeMillis() - 1000;
+
+    private static final String SAVED_CALLS_COUNTER = "resolution calls saved by coalescing";
+
+    private final Map<String, ResolutionManifest.Entry> previousEntries = new ConcurrentHashMap<>();
+
+    private final Set<String> missingKeys = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger unchangedCount = new AtomicInteger();
+
+    /**
+     * Only collect the dependency graph from the poms when {@link #transitive} is true.  The main artifact of
+     * every dependency is not downloaded; only the requested classifier is resolved for each node.
+     */
+    @Parameter( property = "collectOnly", defaultValue = "false" )
+    private boolean collectOnly;
+
+    /**
+     * Only keep the dependencies whose groupId[:artifactId] matches one of these patterns, where * matches any
+     * characters, when {@link #transitive} is true.  A dependency that is not kept is not traversed, so none of
+     * its own dependencies are resolved either.
+     */
+    @Parameter( property = "includes" )
+    private List<String> includes;
+
+    /**
+     * Leave out the dependencies, and everything below them, whose groupId[:artifactId] matches one of these
+     * patterns, where * matches any characters.
+     */
+    @Parameter( property = "excludes" )
+    private List<String> excludes;
+
+    /**
+     * Only follow the dependencies with one of these scopes, e.g. compile,runtime.
+     */
+    @Parameter( property = "scopes" )
+    private List<String> scopes;
+
+    /**
+     * The depth of the deepest dependencies that are resolved, 1 for the direct dependencies of the artifact, or
+     * 0 for no limit.
+     */
+    @Parameter( property = "maxDepth", defaultValue = "0" )
+    private int maxDepth;
+
+    private DependencyGraphFilter graphFilter;
 
     /**
      * A string of the form groupId:artifactId:version[:packaging[:classifier]].
@@ -105,6 +464,30 @@ public class GetMojo extends AbstractMojo {
     @Parameter( property = "artifact" )
     private String artifact;
 
+    /**
+     * A list of strings of the form groupId:artifactId:version[:packaging[:classifier]].  The dependency graphs of
+     * all of them are merged so that every unique artifact is only resolved once.
+     */
+    @Parameter( property = "artifacts" )
+    private List<String> artifacts;
+
+    /**
+     * A file that contains one groupId:artifactId:version[:packaging[:classifier]] per line.  Blank lines and lines
+     * that start with # are ignored.  The artifacts are merged with {@link #artifacts}.
+     */
+    @Parameter( property = "artifactFile" )
+    private File artifactFile;
+
+    /**
+     * Resolve the dependencies of every project of the reactor, together with {@link #artifacts} if there are
+     * any.  The dependency trees of the projects are collected in parallel, with the dependency management of each
+     * project, and merged so that every artifact is resolved once.  Dependencies on other projects of the reactor
+     * are left out, their own dependencies are part of their tree.  The goal only runs with the last project of
+     * the reactor, so it runs once per build.  {@link #incremental} doesn't apply to the trees of the projects.
+     */
+    @Parameter( property = "reactor", defaultValue = "false" )
+    private boolean reactor;
+
     @Parameter( defaultValue = "${project.remoteArtifactRepositories}", readonly = true, required = true )
     private List<ArtifactRepository> pomRemoteRepositories;
 
@@ -150,6 +533,14 @@ public class GetMojo extends AbstractMojo {
     @Parameter( property = "classifier" )
     private String classifier;
 
+    /**
+     * The classifiers to resolve for every artifact, e.g. sources,javadoc.  The dependency graph is collected once
+     * and every node fans out to all of the classifiers, together with the classifier of the artifact if it has
+     * one.
+     */
+    @Parameter( property = "classifiers" )
+    private List<String> classifiers;
+
     /**
      * The packaging of the artifact to download. Ignored if {@link #artifact} is used.
      */
@@ -162,41 +553,66 @@ public class GetMojo extends AbstractMojo {
     @Parameter( defaultValue = "${project.build.directory}", property = "outputDir", required = true )
     private File outputDirectory;
 
+    /**
+     * Place every resolved artifact into {@link #outputDirectory} as soon as it is resolved: none, flat, group
+     * (one directory per groupId) or repository (maven2 repository layout).  Files are hard linked to the local
+     * repository when the file system allows it and copied otherwise.  A flat file whose name clashes with a file
+     * of another groupId gets its groupId in front of its name.
+     */
+    @Parameter( property = "exportLayout", defaultValue = "none" )
+    private String exportLayout = "none";
+
+    private ArtifactExporter artifactExporter;
+
+    /**
+     * Stream the entries of every resolved archive into this zip file while the other artifacts are still being
+     * resolved.
+     */
+    @Parameter( property = "bundleFile" )
+    private File bundleFile;
+
+    /**
+     * Merge the entries of all archives at the root of {@link #bundleFile}, keeping one of the entries with the
+     * same name and contents.  An entry whose contents differ from the one at the root is kept in the directory of
+     * its archive.  Otherwise each archive is placed in its own directory.
+     */
+    @Parameter( property = "bundleDedupe", defaultValue = "true" )
+    private boolean bundleDedupe = true;
+
+    private SourcesBundler sourcesBundler;
+
+    /**
+     * Index the classes of every resolved sources archive into this file, which maps a fully qualified class name
+     * to its archive and entry.  The archives are indexed right after they are resolved, and a {@link SourceIndex}
+     * looks a class up in the memory mapped file without opening any of the archives.  An archive that can't be
+     * read is left out with a warning, and an index that can't be written doesn't fail the build.
+     */
+    @Parameter( property = "sourceIndexFile" )
+    private File sourceIndexFile;
+
+    private SourceIndexer sourceIndexer;
+
     public void execute() throws MojoExecutionException {
 
-        if ( coordinate.getArtifactId() == null && artifact == null ) {
-            throw new MojoExecutionException( "You must specify an artifact, "
-                    + "e.g. -Dartifact=org.apache.maven.plugins:maven-downloader-plugin:1.0" );
+        if ( reactor && !isLastProjectOfReactor() ) {
+            getLog().info( "Skipping " + project.getId() + ", the dependencies of the reactor are resolved with "
+                    + "its last project" );
+            return;
         }
-        if ( artifact != null ) {
-            String[] tokens = StringUtils.split( artifact, ":" );
-            if ( tokens.length < 3 || tokens.length > 5 ) {
-                throw new MojoExecutionException( "Invalid artifact, you must specify "
-                        + "groupId:artifactId:version[:packaging[:classifier]] " + artifact );
-            }
-            coordinate.setGroupId( tokens[0] );
-            coordinate.setArtifactId( tokens[1] );
-            coordinate.setVersion( tokens[2] );
-            if ( tokens.length >= 4 ) {
-                coordinate.setType( tokens[3] );
-            }
-            if ( tokens.length == 5 ) {
-                coordinate.setClassifier( tokens[4] );
-            }
-        } else {
-            coordinate.setGroupId( groupId );
-            coordinate.setArtifactId( artifactId );
-            coordinate.setVersion( version );
-            if ( packaging != null ) {
-                coordinate.setType( packaging );
-            }
-            if ( classifier != null ) {
-                coordinate.setClassifier( classifier );
+
+        List<DefaultDependableCoordinate> roots = getRootCoordinates();
+
+        if ( exportLayout != null && !"none".equalsIgnoreCase( exportLayout ) ) {
+            try {
+                artifactExporter = new ArtifactExporter( outputDirectory, ArtifactExporter.Layout.fromString( exportLayout ) );
+            } catch ( IllegalArgumentException e ) {
+                throw new MojoExecutionException( "Invalid export layout " + exportLayout
+                        + ", it must be none, flat, group or repository", e );
             }
         }
 
-        ArtifactRepositoryPolicy always =
-                new ArtifactRepositoryPolicy( true, ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS,
+        ArtifactRepositoryPolicy policy =
+                new ArtifactRepositoryPolicy( true, getUpdatePolicy(),
                         ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN );
 
         List<ArtifactRepository> repoList = new ArrayList<>();
@@ -209,10 +625,33 @@ public class GetMojo extends AbstractMojo {
             // Use the same format as in the deploy plugin id::layout::url
             String[] repos = StringUtils.split( remoteRepositories, "," );
             for ( String repo : repos ) {
-                repoList.add( parseRepository( repo, always ) );
+                repoList.add( parseRepository( repo, policy ) );
+            }
+        }
+
+        if ( bundleFile != null ) {
+            try {
+                sourcesBundler = new SourcesBundler( bundleFile, bundleDedupe );
+            } catch ( IOException e ) {
+                throw new MojoExecutionException( "Couldn't create bundle " + bundleFile + ": " + e.getMessage(), e );
             }
         }
 
+        if ( repositoryBase != null ) {
+            repositoryMirror = new RepositoryMirror( repositoryBase, threads );
+        }
+
+        if ( sourceIndexFile != null ) {
+            sourceIndexer = new SourceIndexer( sourceIndexFile, threads );
+        }
+
+        retryPolicy = new RetryPolicy( retries, retryBackoffMillis );
+        snapshotMetadataCache = new SnapshotMetadataCache( this::fetchMetadata, snapshotMetadataTtl );
+        circuitBreaker = new RepositoryCircuitBreaker( circuitBreakerThreshold, circuitBreakerCoolDownMillis );
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat( "get-retry-%d" ).setDaemon( true ).build() );
+
+        boolean completed = false;
         try {
             ProjectBuildingRequest buildingRequest =
                     new DefaultProjectBuildingRequest( session.getProjectBuildingRequest() );
@@ -223,66 +662,1389 @@ public class GetMojo extends AbstractMojo {
             repositorySystem.injectAuthentication( repoList, settings.getServers() );
 
             buildingRequest.setRemoteRepositories( repoList );
+            configureTransport( buildingRequest );
+
+            if ( transitive ) {
+                applyGraphFilter( buildingRequest );
+            }
+
+            if ( verifyChecksums ) {
+                File baseDir = buildingRequest.getRepositorySession().getLocalRepository().getBasedir();
+                checksumVerifier = new ChecksumVerifier( baseDir, Paths.get( baseDir.getAbsolutePath(), ".cache",
+                        "extended-dependency-plugin", "quarantine" ).toFile(), threads );
+            }
+
+            if ( sharedLocalRepository ) {
+                resolutionLocks = new ResolutionLocks( Paths.get( buildingRequest.getRepositorySession()
+                        .getLocalRepository().getBasedir().getAbsolutePath(), ".cache", "extended-dependency-plugin",
+                        "locks" ).toFile() );
+            }
 
             if ( transitive ) {
-                getLog().info( "Resolving " + coordinate + " with transitive dependencies" );
-                Iterable<ArtifactResult> results = dependencyResolver.resolveDependencies( buildingRequest, coordinate, null );
-                for (Iterator<ArtifactResult> iterator = results.iterator(); iterator.hasNext();) {
-                    if (iterator.hasNext()) {
-                        ArtifactResult artifactResult = iterator.next();
-                        try {
-                            ArtifactCoordinate coordinate = toArtifactCoordinate(artifactResult, this.coordinate);
-                            getLog().info( "Resolving " + coordinate );
-                            artifactResolver.resolveArtifact(buildingRequest, coordinate);
-                        } catch (Exception e) {
-                            getLog().warn(e.getMessage(), e);
-                        }
+                resolveTransitively( buildingRequest, roots, repoList );
+            } else {
+                long phaseStart = System.nanoTime();
+                for ( DefaultDependableCoordinate root : roots ) {
+                    for ( String rootClassifier : getClassifiers( root ) ) {
+                        ArtifactCoordinate artifactCoordinate = toArtifactCoordinate( root, rootClassifier );
+                        getLog().info( "Resolving " + artifactCoordinate );
+                        await( fetchWithRetries( Runnable::run, buildingRequest, artifactCoordinate ) );
                     }
                 }
-            } else {
-                getLog().info( "Resolving " + coordinate );
-                artifactResolver.resolveArtifact( buildingRequest, toArtifactCoordinate( coordinate ) );
+                metrics.recordPhase( "classifier resolution", System.nanoTime() - phaseStart );
+                awaitVerifications();
+                if ( !publishFailures.isEmpty() ) {
+                    throw publishFailures.values().iterator().next();
+                }
             }
-        } catch ( ArtifactResolverException | DependencyResolverException e ) {
+            completed = true;
+        } catch ( ArtifactResolverException | DependencyResolverException | DependencyCollectionException e ) {
             throw new MojoExecutionException( "Couldn't download artifact: " + e.getMessage(), e );
+        } catch ( IOException e ) {
+            throw new MojoExecutionException( "Couldn't export artifact: " + e.getMessage(), e );
+        } finally {
+            retryScheduler.shutdownNow();
+            if ( checksumVerifier != null ) {
+                checksumVerifier.shutdown();
+            }
+            if ( sourcesBundler != null && !completed ) {
+                sourcesBundler.abort();
+            }
+            if ( sourceIndexer != null && !completed ) {
+                sourceIndexer.abort();
+            }
+            if ( repositoryMirror != null && !completed ) {
+                repositoryMirror.abort();
+            }
+        }
+        if ( sourcesBundler != null ) {
+            long phaseStart = System.nanoTime();
+            try {
+                sourcesBundler.close();
+            } catch ( IOException e ) {
+                throw new MojoExecutionException( e.getMessage(), e );
+            }
+            for ( String conflict : sourcesBundler.getConflicts() ) {
+                getLog().warn( conflict + ", kept both" );
+            }
+            getLog().info( "Bundled " + sourcesBundler.getArchiveCount() + " archives into "
+                    + sourcesBundler.getBundleFile() + ", skipped " + sourcesBundler.getSkippedCount()
+                    + " duplicate entries" );
+            metrics.recordPhase( "bundle", System.nanoTime() - phaseStart );
+        }
+        if ( repositoryMirror != null ) {
+            long phaseStart = System.nanoTime();
+            try {
+                repositoryMirror.close();
+            } catch ( IOException e ) {
+                throw new MojoExecutionException( "Couldn't write the mirror " + repositoryBase + ": "
+                        + e.getMessage(), e );
+            }
+            getLog().info( "Wrote " + repositoryMirror.getFileCount() + " files and "
+                    + repositoryMirror.getMetadataCount() + " metadata files to " + repositoryMirror.getBaseDir() );
+            metrics.recordPhase( "mirror", System.nanoTime() - phaseStart );
+        }
+        if ( sourceIndexer != null ) {
+            long phaseStart = System.nanoTime();
+            try {
+                sourceIndexer.close();
+                getLog().info( "Indexed " + sourceIndexer.getClassCount() + " classes of "
+                        + sourceIndexer.getArchiveCount() + " sources archives into " + sourceIndexer.getIndexFile()
+                        + ", skipped " + sourceIndexer.getDuplicateCount()
+                        + " classes found in more than one archive" );
+            } catch ( IOException e ) {
+                getLog().warn( "Couldn't write the source index " + sourceIndexFile + ": " + e.getMessage(), e );
+            }
+            List<String> unreadable = sourceIndexer.getUnreadable();
+            for ( String reason : unreadable ) {
+                getLog().warn( reason );
+            }
+            if ( !unreadable.isEmpty() ) {
+                metrics.increment( "sources archives that couldn't be indexed", unreadable.size() );
+            }
+            metrics.recordPhase( "source index", System.nanoTime() - phaseStart );
+        }
+        if ( artifactExporter != null ) {
+            getLog().info( "Exported " + ( artifactExporter.getLinkedCount() + artifactExporter.getCopiedCount() )
+                    + " artifacts to " + artifactExporter.getOutputDirectory() + " ("
+                    + artifactExporter.getLinkedCount() + " hard links, " + artifactExporter.getCopiedCount()
+                    + " copies)" );
+            if ( artifactExporter.getRenamedCount() > 0 ) {
+                getLog().warn( artifactExporter.getRenamedCount() + " exported files start with their groupId "
+                        + "because another groupId has a file of the same name" );
+            }
+        }
+        if ( hostConnectionPool != null ) {
+            hostConnectionPool.report( metrics );
+        }
+        if ( snapshotMetadataCache.getRequestCount() + snapshotMetadataCache.getReusedCount() > 0 ) {
+            metrics.increment( "snapshot metadata downloaded", snapshotMetadataCache.getRequestCount() );
+            metrics.increment( "snapshot metadata reused from the local repository",
+                    snapshotMetadataCache.getReusedCount() );
+            metrics.increment( "snapshot metadata lookups answered within the run",
+                    snapshotMetadataCache.getHitCount() );
+        }
+        if ( circuitBreaker.getOpenedCount() > 0 ) {
+            metrics.increment( "repository circuit breakers opened", circuitBreaker.getOpenedCount() );
+            for ( Map.Entry<String, Integer> skipped : circuitBreaker.getSkippedRequests().entrySet() ) {
+                metrics.increment( "requests not sent to " + skipped.getKey() + " by its circuit breaker",
+                        skipped.getValue() );
+            }
+        }
+        metrics.logSummary( getLog() );
+        if ( metricsReport ) {
+            File metricsFile = new File( outputDirectory, "extended-dependency-metrics.json" );
+            try {
+                metrics.writeJson( metricsFile );
+                getLog().info( "Wrote the metrics of the run to " + metricsFile );
+            } catch ( IOException e ) {
+                getLog().warn( "Couldn't write the metrics to " + metricsFile + ": " + e.getMessage(), e );
+            }
+        }
+        if ( !checksumFailures.isEmpty() && failOnChecksumMismatch ) {
+            throw new MojoExecutionException( "Checksum verification failed for " + checksumFailures );
         }
 
     }
 
-    private ArtifactCoordinate toArtifactCoordinate(final ArtifactResult artifactResult, final DependableCoordinate dependableCoordinate) {
-        Artifact artifact = artifactResult.getArtifact();
-        ArtifactHandler artifactHandler = artifactHandlerManager.getArtifactHandler( artifact.getType() );
-        DefaultArtifactCoordinate artifactCoordinate = new DefaultArtifactCoordinate();
-        artifactCoordinate.setGroupId( artifact.getGroupId() );
-        artifactCoordinate.setArtifactId( artifact.getArtifactId() );
-        artifactCoordinate.setVersion( artifact.getVersion() );
-        artifactCoordinate.setClassifier( dependableCoordinate.getClassifier() );
-        artifactCoordinate.setExtension( artifactHandler.getExtension() );
-        return artifactCoordinate;
-    }
-
-
-    ArtifactRepository parseRepository(final  String repo, final ArtifactRepositoryPolicy policy ) throws MojoExecutionException {
-        // if it's a simple url
-        String id = "temp";
-        ArtifactRepositoryLayout layout = getLayout( "default" );
-        String url = repo;
-
-        // if it's an extended repo URL of the form id::layout::url
-        if ( repo.contains( "::" ) ) {
-            Matcher matcher = ALT_REPO_SYNTAX_PATTERN.matcher( repo );
-            if ( !matcher.matches() ) {
-                throw new MojoExecutionException( repo, "Invalid syntax for repository: " + repo,
-                        "Invalid syntax for repository. Use \"id::layout::url\" or \"URL\"." );
+    private List<DefaultDependableCoordinate> getRootCoordinates() throws MojoExecutionException {
+        List<String> artifactStrings = new ArrayList<>();
+        if ( artifact != null ) {
+            artifactStrings.add( artifact );
+        }
+        if ( artifacts != null ) {
+            artifactStrings.addAll( artifacts );
+        }
+        if ( artifactFile != null ) {
+            try {
+                for ( String line : Files.readAllLines( artifactFile.toPath(), StandardCharsets.UTF_8 ) ) {
+                    String trimmed = line.trim();
+                    if ( !trimmed.isEmpty() && !trimmed.startsWith( "#" ) ) {
+                        artifactStrings.add( trimmed );
+                    }
+                }
+            } catch ( IOException e ) {
+                throw new MojoExecutionException( "Couldn't read artifact file " + artifactFile, e );
             }
+        }
 
-            id = matcher.group( 1 ).trim();
-            if ( !StringUtils.isEmpty( matcher.group( 2 ) ) ) {
-                layout = getLayout( matcher.group( 2 ).trim() );
-            }
-            url = matcher.group( 3 ).trim();
+        List<DefaultDependableCoordinate> roots = new ArrayList<>();
+        for ( String artifactString : artifactStrings ) {
+            roots.add( parseArtifact( artifactString ) );
         }
-        return new MavenArtifactRepository( id, url, layout, policy, policy );
+        if ( roots.isEmpty() && artifactId != null ) {
+            DefaultDependableCoordinate coordinate = new DefaultDependableCoordinate();
+            coordinate.setGroupId( groupId );
+            coordinate.setArtifactId( artifactId );
+            coordinate.setVersion( version );
+            if ( packaging != null ) {
+                coordinate.setType( packaging );
+            }
+            if ( classifier != null ) {
+                coordinate.setClassifier( classifier );
+            }
+            roots.add( coordinate );
+        }
+        if ( reactor && !transitive ) {
+            roots.addAll( getReactorDependencies() );
+        }
+        if ( roots.isEmpty() && !reactor ) {
+            throw new MojoExecutionException( "You must specify an artifact, "
+                    + "e.g. -Dartifact=org.apache.maven.plugins:maven-downloader-plugin:1.0" );
+        }
+        return roots;
+    }
+
+    private DefaultDependableCoordinate parseArtifact(final String artifactString ) throws MojoExecutionException {
+        String[] tokens = StringUtils.split( artifactString, ":" );
+        if ( tokens.length < 3 || tokens.length > 5 ) {
+            throw new MojoExecutionException( "Invalid artifact, you must specify "
+                    + "groupId:artifactId:version[:packaging[:classifier]] " + artifactString );
+        }
+        DefaultDependableCoordinate coordinate = new DefaultDependableCoordinate();
+        coordinate.setGroupId( tokens[0] );
+        coordinate.setArtifactId( tokens[1] );
+        coordinate.setVersion( tokens[2] );
+        if ( tokens.length >= 4 ) {
+            coordinate.setType( tokens[3] );
+        }
+        if ( tokens.length == 5 ) {
+            coordinate.setClassifier( tokens[4] );
+        }
+        return coordinate;
+    }
+
+    private boolean isLastProjectOfReactor() {
+        List<MavenProject> projects = session.getProjects();
+        return project == null || projects == null || projects.isEmpty()
+                || project.getId().equals( projects.get( projects.size() - 1 ).getId() );
+    }
+
+    /**
+     * The groupId:artifactId of every project of the reactor.
+     */
+    private Set<String> getReactorKeys() {
+        Set<String> reactorKeys = new HashSet<>();
+        for ( MavenProject module : session.getProjects() ) {
+            reactorKeys.add( module.getGroupId() + ":" + module.getArtifactId() );
+        }
+        return reactorKeys;
+    }
+
+    /**
+     * The dependencies of a project of the reactor that are not themselves projects of the reactor.
+     */
+    private static List<org.apache.maven.model.Dependency> getExternalDependencies(final MavenProject module,
+                                                                              final Set<String> reactorKeys) {
+        List<org.apache.maven.model.Dependency> dependencies = new ArrayList<>();
+        for ( org.apache.maven.model.Dependency dependency : module.getDependencies() ) {
+            if ( !reactorKeys.contains( dependency.getGroupId() + ":" + dependency.getArtifactId() ) ) {
+                dependencies.add( dependency );
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * The direct dependencies of the projects of the reactor that are kept by {@link #includes},
+     * {@link #excludes} and {@link #scopes}, once each.
+     */
+    private List<DefaultDependableCoordinate> getReactorDependencies() throws MojoExecutionException {
+        DependencyGraphFilter filter;
+        try {
+            filter = new DependencyGraphFilter( includes, excludes,
+                    scopes == null ? null : new HashSet<>( scopes ), 0 );
+        } catch ( IllegalArgumentException e ) {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+        Set<String> reactorKeys = getReactorKeys();
+        Map<String, DefaultDependableCoordinate> dependencies = new LinkedHashMap<>();
+        for ( MavenProject module : session.getProjects() ) {
+            for ( org.apache.maven.model.Dependency dependency : getExternalDependencies( module, reactorKeys ) ) {
+                if ( !filter.selectDependency( new Dependency( new DefaultArtifact( dependency.getGroupId(),
+                        dependency.getArtifactId(), dependency.getClassifier(), dependency.getType(),
+                        dependency.getVersion() ), dependency.getScope() ) ) ) {
+                    continue;
+                }
+                DefaultDependableCoordinate coordinate = new DefaultDependableCoordinate();
+                coordinate.setGroupId( dependency.getGroupId() );
+                coordinate.setArtifactId( dependency.getArtifactId() );
+                coordinate.setVersion( dependency.getVersion() );
+                coordinate.setType( dependency.getType() );
+                coordinate.setClassifier( StringUtils.isEmpty( dependency.getClassifier() )
+                        ? null : dependency.getClassifier() );
+                dependencies.putIfAbsent( dependency.getManagementKey() + ":" + dependency.getVersion(), coordinate );
+            }
+        }
+        return new ArrayList<>( dependencies.values() );
+    }
+
+    /**
+     * Collect the dependency trees of the projects of the reactor on a pool of {@link #threads} workers, offering
+     * the nodes of every tree to the pipeline as the tree is walked.
+     */
+    private void collectReactorGraphs(final ProjectBuildingRequest buildingRequest,
+                                      final List<String> nodeClassifiers,
+                                      final ResolutionPipeline<ResolvedArtifact> pipeline,
+                                      final List<CompletableFuture<Void>> reports)
+            throws MojoExecutionException, InterruptedException {
+        List<MavenProject> modules = session.getProjects();
+        Set<String> reactorKeys = getReactorKeys();
+        getLog().info( "Resolving the dependencies of " + modules.size() + " projects"
+                + ( nodeClassifiers.size() > 1 || nodeClassifiers.get( 0 ) != null
+                ? " for the classifiers " + nodeClassifiers : "" ) );
+        ExecutorService executorService = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads,
+                modules.size() ) ), new ThreadFactoryBuilder().setNameFormat( "get-collector-%d" ).setDaemon( true )
+                .build() );
+        try {
+            List<Future<Void>> futures = new ArrayList<>( modules.size() );
+            for ( final MavenProject module : modules ) {
+                futures.add( executorService.submit( () -> {
+                    GraphWalk walk = new GraphWalk( pipeline, nodeClassifiers, false );
+                    collectModuleGraph( buildingRequest, getExternalDependencies( module, reactorKeys ),
+                            module.getDependencyManagement() == null
+                                    ? Collections.<org.apache.maven.model.Dependency>emptyList()
+                                    : module.getDependencyManagement().getDependencies(), walk );
+                    synchronized ( reports ) {
+                        reports.add( walk.getReport() );
+                    }
+                    return null;
+                } ) );
+            }
+            for ( int i = 0; i < modules.size(); i++ ) {
+                try {
+                    futures.get( i ).get();
+                } catch ( ExecutionException e ) {
+                    throw new MojoExecutionException( "Couldn't resolve the dependencies of "
+                            + modules.get( i ).getId() + ": " + e.getCause().getMessage(), e.getCause() );
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Collect or resolve, as {@link #collectOnly} says, the tree of a list of dependencies under their dependency
+     * management and walk it.
+     */
+    private void collectModuleGraph(final ProjectBuildingRequest buildingRequest,
+                                    final List<org.apache.maven.model.Dependency> dependencies,
+                                    final List<org.apache.maven.model.Dependency> managed, final GraphWalk walk)
+            throws DependencyCollectionException, DependencyResolverException, InterruptedException {
+        if ( dependencies.isEmpty() ) {
+            return;
+        }
+        if ( collectOnly ) {
+            ArtifactTypeRegistry types = buildingRequest.getRepositorySession().getArtifactTypeRegistry();
+            CollectRequest collectRequest = new CollectRequest();
+            for ( org.apache.maven.model.Dependency dependency : dependencies ) {
+                collectRequest.addDependency( RepositoryUtils.toDependency( dependency, types ) );
+            }
+            for ( org.apache.maven.model.Dependency dependency : managed ) {
+                collectRequest.addManagedDependency( RepositoryUtils.toDependency( dependency, types ) );
+            }
+            collectRequest.setRepositories( RepositoryUtils.toRepos( buildingRequest.getRemoteRepositories() ) );
+            long start = System.nanoTime();
+            DependencyNode rootNode = repoSystem.collectDependencies( buildingRequest.getRepositorySession(),
+                    collectRequest ).getRoot();
+            graphNanos.addAndGet( System.nanoTime() - start );
+            walk.walk( rootNode );
+            return;
+        }
+        long start = System.nanoTime();
+        Iterable<ArtifactResult> artifactResults =
+                dependencyResolver.resolveDependencies( buildingRequest, dependencies, managed, null );
+        graphNanos.addAndGet( System.nanoTime() - start );
+        for ( ArtifactResult artifactResult : artifactResults ) {
+            walk.offer( artifactResult );
+        }
+    }
+
+    /**
+     * The classifiers to resolve for the nodes of the graph of a root artifact.  A null classifier stands for
+     * the main artifact.
+     */
+    private List<String> getClassifiers(final DependableCoordinate root) {
+        return getClassifiers( root.getClassifier() );
+    }
+
+    private List<String> getClassifiers(final String artifactClassifier) {
+        List<String> rootClassifiers = new ArrayList<>();
+        if ( classifiers == null || classifiers.isEmpty() || artifactClassifier != null ) {
+            rootClassifiers.add( artifactClassifier );
+        }
+        if ( classifiers != null ) {
+            for ( String rootClassifier : classifiers ) {
+                String trimmed = StringUtils.isBlank( rootClassifier ) ? null : rootClassifier.trim();
+                if ( !rootClassifiers.contains( trimmed ) ) {
+                    rootClassifiers.add( trimmed );
+                }
+            }
+        }
+        return rootClassifiers;
+    }
+
+    private static String toKey(final ArtifactCoordinate artifactCoordinate) {
+        return artifactCoordinate.getGroupId() + ":" + artifactCoordinate.getArtifactId() + ":"
+                + artifactCoordinate.getExtension() + ":"
+                + ( artifactCoordinate.getClassifier() == null ? "" : artifactCoordinate.getClassifier() ) + ":"
+                + artifactCoordinate.getVersion();
+    }
+
+    /**
+     * Resolve the graph of the coordinate, downloading the main artifacts, and walk it.
+     */
+    private void resolveDependencies(final ProjectBuildingRequest buildingRequest,
+                                     final DependableCoordinate dependableCoordinate, final GraphWalk walk)
+            throws DependencyResolverException, InterruptedException {
+        long start = System.nanoTime();
+        Iterable<ArtifactResult> artifactResults =
+                dependencyResolver.resolveDependencies( buildingRequest, dependableCoordinate, null );
+        graphNanos.addAndGet( System.nanoTime() - start );
+        for ( ArtifactResult artifactResult : artifactResults ) {
+            walk.offer( artifactResult );
+        }
+    }
+
+    /**
+     * Collect the dependency graph of the coordinate by reading the poms only and walk it.  None of the artifact
+     * files are downloaded.
+     */
+    private void collectDependencies(final ProjectBuildingRequest buildingRequest,
+                                     final DependableCoordinate dependableCoordinate, final GraphWalk walk)
+            throws DependencyCollectionException, InterruptedException {
+        ArtifactHandler artifactHandler = artifactHandlerManager.getArtifactHandler( dependableCoordinate.getType() );
+        DefaultArtifact root = new DefaultArtifact( dependableCoordinate.getGroupId(),
+                dependableCoordinate.getArtifactId(), artifactHandler.getClassifier(),
+                artifactHandler.getExtension(), dependableCoordinate.getVersion() );
+        CollectRequest collectRequest = new CollectRequest( new Dependency( root, null ),
+                RepositoryUtils.toRepos( buildingRequest.getRemoteRepositories() ) );
+        long start = System.nanoTime();
+        DependencyNode rootNode = repoSystem.collectDependencies( buildingRequest.getRepositorySession(),
+                collectRequest ).getRoot();
+        graphNanos.addAndGet( System.nanoTime() - start );
+        walk.walk( rootNode );
+    }
+
+    /**
+     * Resolve the roots with their transitive dependencies.  The graph of every root, and of every project of the
+     * reactor, is walked as soon as it is collected and its nodes are resolved on a bounded pool of
+     * {@link #threads} workers while the graph is walked.  Only {@link #queueCapacity} nodes are in flight at a
+     * time, so the graphs don't pile up in memory ahead of the downloads.  A failure only affects the artifact it
+     * belongs to and the results of every graph are logged in the order in which its nodes were walked.
+     */
+    private void resolveTransitively(final ProjectBuildingRequest buildingRequest,
+                                     final List<DefaultDependableCoordinate> roots,
+                                     final List<ArtifactRepository> repoList)
+            throws MojoExecutionException, DependencyResolverException, DependencyCollectionException {
+        DownloadScheduler downloadScheduler = new DownloadScheduler( threads, largeDownloadBytes, artifactCoordinate -> {
+            ResolutionManifest.Entry previousEntry = previousEntries.get( toKey( artifactCoordinate ) );
+            return previousEntry != null ? previousEntry.getSize() : -1;
+        } );
+        NegativeResolutionCache negativeCache = createNegativeCache( buildingRequest );
+        Map<String, ResolvedArtifact> resolvedArtifacts = incremental ? new ConcurrentHashMap<>() : null;
+        Map<String, List<ArtifactCoordinate>> rootGraphs = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> reports = new ArrayList<>();
+        ResolutionPipeline<ResolvedArtifact> pipeline = new ResolutionPipeline<>( queueCapacity > 0 ? queueCapacity
+                : 4 * Math.max( 1, threads ), artifactCoordinate -> resolveNode( downloadScheduler, buildingRequest,
+                artifactCoordinate, negativeCache, resolvedArtifacts ) );
+        if ( localIndex ) {
+            loadLocalRepositoryIndex( buildingRequest );
+        }
+        long phaseStart = System.nanoTime();
+        try {
+            for ( DefaultDependableCoordinate root : roots ) {
+                List<String> rootClassifiers = getClassifiers( root );
+                String manifestKey = getManifestKey( root, rootClassifiers, repoList );
+                GraphWalk walk = new GraphWalk( pipeline, rootClassifiers, incremental );
+                List<ArtifactCoordinate> rootCoordinates = readManifest( root, manifestKey );
+                if ( rootCoordinates != null ) {
+                    for ( ArtifactCoordinate artifactCoordinate : rootCoordinates ) {
+                        walk.offer( artifactCoordinate );
+                    }
+                } else {
+                    getLog().info( "Resolving " + root + " with transitive dependencies"
+                            + ( rootClassifiers.size() > 1 ? " for the classifiers " + rootClassifiers : "" ) );
+                    if ( collectOnly ) {
+                        collectDependencies( buildingRequest, root, walk );
+                    } else {
+                        resolveDependencies( buildingRequest, root, walk );
+                    }
+                }
+                if ( incremental ) {
+                    rootGraphs.put( manifestKey, walk.getCoordinates() );
+                }
+                synchronized ( reports ) {
+                    reports.add( walk.getReport() );
+                }
+            }
+            if ( reactor ) {
+                collectReactorGraphs( buildingRequest, getClassifiers( (String) null ), pipeline, reports );
+            }
+            pipeline.drain();
+            synchronized ( reports ) {
+                for ( CompletableFuture<Void> report : reports ) {
+                    report.join();
+                }
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException( "Interrupted while resolving artifacts", e );
+        } finally {
+            downloadScheduler.shutdown();
+        }
+        metrics.recordPhase( "graph collection", graphNanos.get() );
+        if ( pipeline.getBlockedNanos() > 0 ) {
+            metrics.recordPhase( "queue wait", pipeline.getBlockedNanos() );
+        }
+        metrics.recordPhase( "classifier resolution", System.nanoTime() - phaseStart );
+        if ( downloadScheduler.getLargeCount() > 0 ) {
+            metrics.increment( "artifacts scheduled in the large lane", downloadScheduler.getLargeCount() );
+        }
+
+        saveNegativeCache( negativeCache );
+        if ( localRepositoryIndex != null ) {
+            saveLocalRepositoryIndex();
+        }
+        if ( unchangedCount.get() > 0 ) {
+            metrics.increment( "unchanged since the last run", unchangedCount.get() );
+        }
+        if ( coalescedCount.get() > 0 ) {
+            metrics.increment( "downloaded by another process", coalescedCount.get() );
+        }
+        if ( pipeline.getNodeCount() > pipeline.getUniqueCount() ) {
+            metrics.increment( SAVED_CALLS_COUNTER, pipeline.getNodeCount() - pipeline.getUniqueCount() );
+        }
+        int graphCount = roots.size() + ( reactor ? session.getProjects().size() : 0 );
+        if ( graphCount > 1 ) {
+            getLog().info( "Merged " + pipeline.getNodeCount() + " dependencies of "
+                    + ( reactor ? ( roots.isEmpty() ? "" : roots.size() + " artifacts and " )
+                    + session.getProjects().size() + " projects" : roots.size() + " artifacts" )
+                    + " into " + pipeline.getUniqueCount() + " unique artifacts" );
+        }
+        getLog().debug( "At most " + pipeline.getPeakQueued() + " of " + pipeline.getCapacity()
+                + " dependencies were in flight at a time" );
+
+        Set<String> quarantined = awaitVerifications();
+        if ( incremental ) {
+            resolvedArtifacts.keySet().removeAll( quarantined );
+            resolvedArtifacts.keySet().removeAll( publishFailures.keySet() );
+            for ( Map.Entry<String, List<ArtifactCoordinate>> rootGraph : rootGraphs.entrySet() ) {
+                writeManifest( rootGraph.getKey(), rootGraph.getValue(), resolvedArtifacts );
+            }
+        }
+    }
+
+    /**
+     * Start the resolution of a node of a graph on the download scheduler and record its result once it completes.
+     * A node that was not found within the {@link #negativeCacheTtl} is skipped and completes with null.
+     */
+    private CompletableFuture<ResolvedArtifact> resolveNode(final DownloadScheduler downloadScheduler,
+                                             final ProjectBuildingRequest buildingRequest,
+                                             final ArtifactCoordinate artifactCoordinate,
+                                             final NegativeResolutionCache negativeCache,
+                                             final Map<String, ResolvedArtifact> resolvedArtifacts) {
+        final String key = toKey( artifactCoordinate );
+        if ( negativeCache != null && negativeCache.isMissing( key ) ) {
+            missingKeys.add( key );
+            metrics.recordArtifact( key, ResolutionMetrics.Source.SKIPPED, null, 0, 0 );
+            return CompletableFuture.completedFuture( null );
+        }
+        return fetchWithRetries( task -> downloadScheduler.execute( artifactCoordinate, task ), buildingRequest,
+                artifactCoordinate ).whenComplete( ( resolvedArtifact, failure ) -> {
+            if ( failure == null ) {
+                if ( !resolvedArtifact.isFromLocalRepository() && resolvedArtifact.getFile() != null ) {
+                    downloadScheduler.recordSize( artifactCoordinate, resolvedArtifact.getFile().length() );
+                }
+                if ( resolvedArtifacts != null ) {
+                    resolvedArtifacts.put( key, resolvedArtifact );
+                }
+                if ( negativeCache != null ) {
+                    negativeCache.markFound( key );
+                }
+            } else if ( NegativeResolutionCache.isNotFound( failure ) ) {
+                missingKeys.add( key );
+                if ( negativeCache != null ) {
+                    negativeCache.markMissing( key );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Log the result of a node of a graph.
+     */
+    private void logNode(final ArtifactCoordinate artifactCoordinate, final ResolvedArtifact resolvedArtifact,
+                         final Throwable failure) {
+        if ( failure != null ) {
+            getLog().info( "Resolving " + artifactCoordinate + " failed" );
+            getLog().warn( failure.getMessage(), failure );
+        } else if ( resolvedArtifact == null ) {
+            getLog().info( "Skipping " + artifactCoordinate + ", it was not found within the last "
+                    + negativeCacheTtl + " minutes" );
+        } else {
+            getLog().info( ( resolvedArtifact.isFromLocalRepository() ? "Found " : "Resolved " )
+                    + artifactCoordinate );
+        }
+    }
+
+    /**
+     * Resolve a single artifact on the executor, retrying it after transient failures as the {@link #retryPolicy}
+     * allows.  A retry is scheduled to go back on the executor once its wait is over, so waiting doesn't hold a
+     * thread of the executor.
+     */
+    private CompletableFuture<ResolvedArtifact> fetchWithRetries(final Executor executor,
+                                                                 final ProjectBuildingRequest buildingRequest,
+                                                                 final ArtifactCoordinate artifactCoordinate) {
+        CompletableFuture<ResolvedArtifact> result = new CompletableFuture<>();
+        submitAttempt( executor, buildingRequest, artifactCoordinate, 1, System.nanoTime(), result );
+        return result;
+    }
+
+    private void submitAttempt(final Executor executor, final ProjectBuildingRequest buildingRequest,
+                               final ArtifactCoordinate artifactCoordinate, final int attempt, final long start,
+                               final CompletableFuture<ResolvedArtifact> result) {
+        try {
+            executor.execute( () -> {
+                try {
+                    result.complete( fetchArtifact( buildingRequest, artifactCoordinate ) );
+                } catch ( ArtifactResolverException | IOException | RuntimeException e ) {
+                    if ( !retryPolicy.shouldRetry( e, attempt ) ) {
+                        metrics.recordArtifact( toKey( artifactCoordinate ), ResolutionMetrics.Source.FAILED, null,
+                                System.nanoTime() - start, 0 );
+                        result.completeExceptionally( e );
+                        return;
+                    }
+                    long delay = retryPolicy.getDelayMillis( attempt );
+                    metrics.increment( RETRIES_COUNTER, 1 );
+                    getLog().info( "Retrying " + artifactCoordinate + " in " + delay + " ms after: " + e.getMessage() );
+                    retryScheduler.schedule( () -> submitAttempt( executor, buildingRequest, artifactCoordinate,
+                            attempt + 1, start, result ), delay, TimeUnit.MILLISECONDS );
+                }
+            } );
+        } catch ( RejectedExecutionException e ) {
+            result.completeExceptionally( e );
+        }
+    }
+
+    /**
+     * Wait for a resolution, rethrowing its failure.
+     */
+    private static ResolvedArtifact await(final CompletableFuture<ResolvedArtifact> future)
+            throws ArtifactResolverException, IOException {
+        try {
+            return future.join();
+        } catch ( CompletionException e ) {
+            if ( e.getCause() instanceof ArtifactResolverException ) {
+                throw (ArtifactResolverException) e.getCause();
+            }
+            if ( e.getCause() instanceof IOException ) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolve a single artifact once per run.  A request for an artifact that is already being resolved waits for
+     * that resolution and gets its result or its failure.  A request for an artifact that was already resolved is
+     * answered by the local repository, and one for an artifact that failed tries again.
+     */
+    private ResolvedArtifact fetchArtifact(final ProjectBuildingRequest buildingRequest,
+                                           final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException, IOException {
+        String key = toKey( artifactCoordinate );
+        CompletableFuture<ResolvedArtifact> future = new CompletableFuture<>();
+        CompletableFuture<ResolvedArtifact> first = inFlight.putIfAbsent( key, future );
+        if ( first != null ) {
+            metrics.increment( SAVED_CALLS_COUNTER, 1 );
+            return await( first );
+        }
+        try {
+            ResolvedArtifact resolvedArtifact;
+            if ( resolvedKeys.contains( key ) ) {
+                metrics.increment( SAVED_CALLS_COUNTER, 1 );
+                resolvedArtifact = resolveArtifact( buildingRequest, artifactCoordinate );
+            } else {
+                resolvedArtifact = fetchArtifactOnce( buildingRequest, artifactCoordinate );
+                resolvedKeys.add( key );
+            }
+            future.complete( resolvedArtifact );
+            return resolvedArtifact;
+        } catch ( ArtifactResolverException | IOException | RuntimeException e ) {
+            future.completeExceptionally( e );
+            throw e;
+        } finally {
+            inFlight.remove( key, future );
+        }
+    }
+
+    /**
+     * Resolve a single artifact and hand it to the export and bundle stages as soon as it is available.
+     */
+    private ResolvedArtifact fetchArtifactOnce(final ProjectBuildingRequest buildingRequest,
+                                               final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException, IOException {
+        long start = System.nanoTime();
+        ResolvedArtifact resolvedArtifact = resolveArtifact( buildingRequest, artifactCoordinate );
+        File file = resolvedArtifact.getFile();
+        metrics.recordArtifact( toKey( artifactCoordinate ), resolvedArtifact.isFromLocalRepository()
+                        ? ResolutionMetrics.Source.LOCAL : ResolutionMetrics.Source.REMOTE,
+                resolvedArtifact.getRepositoryId(), System.nanoTime() - start, resolvedArtifact.getDownloadedBytes() );
+        if ( file == null ) {
+            return resolvedArtifact;
+        }
+        if ( checksumVerifier != null
+                && ( !resolvedArtifact.isFromLocalRepository() || file.lastModified() >= runStartMillis ) ) {
+            verifications.put( toKey( artifactCoordinate ), checksumVerifier.submit( toKey( artifactCoordinate ), file,
+                    extension -> getChecksumFile( buildingRequest, artifactCoordinate,
+                            resolvedArtifact.getRepositoryId(), extension ),
+                    verifiedFile -> publishVerified( buildingRequest, artifactCoordinate, verifiedFile ) ) );
+        } else {
+            publish( buildingRequest, artifactCoordinate, file );
+        }
+        return resolvedArtifact;
+    }
+
+    /**
+     * Publish a file once it is verified, keeping a failure apart from the outcome of the verification.
+     */
+    private void publishVerified(final ProjectBuildingRequest buildingRequest,
+                                 final ArtifactCoordinate artifactCoordinate, final File file) {
+        try {
+            publish( buildingRequest, artifactCoordinate, file );
+        } catch ( IOException e ) {
+            publishFailures.put( toKey( artifactCoordinate ), e );
+        }
+    }
+
+    /**
+     * Hand a resolved file to the export, bundle, mirror and source index stages.
+     */
+    private void publish(final ProjectBuildingRequest buildingRequest, final ArtifactCoordinate artifactCoordinate,
+                         final File file) throws IOException {
+        if ( artifactExporter != null ) {
+            artifactExporter.export( artifactCoordinate, file );
+        }
+        if ( sourcesBundler != null && SourcesBundler.isBundled( artifactCoordinate ) ) {
+            sourcesBundler.add( artifactCoordinate, file );
+        }
+        if ( sourceIndexer != null && SourceIndexer.isSourcesArchive( artifactCoordinate ) ) {
+            sourceIndexer.add( artifactCoordinate, file );
+        }
+        if ( repositoryMirror != null ) {
+            repositoryMirror.add( artifactCoordinate, file );
+            if ( repositoryMirror.claimPom( artifactCoordinate.getGroupId(), artifactCoordinate.getArtifactId(),
+                    artifactCoordinate.getVersion() ) ) {
+                mirrorPom( buildingRequest, artifactCoordinate );
+            }
+        }
+    }
+
+    /**
+     * Add the pom of an artifact to the mirror, resolving it if it is not in the local repository yet.  The
+     * dependency graph usually has already downloaded it.
+     */
+    private void mirrorPom(final ProjectBuildingRequest buildingRequest, final ArtifactCoordinate artifactCoordinate)
+            throws IOException {
+        if ( "pom".equals( artifactCoordinate.getExtension() ) && artifactCoordinate.getClassifier() == null ) {
+            return;
+        }
+        DefaultArtifactCoordinate pomCoordinate = new DefaultArtifactCoordinate();
+        pomCoordinate.setGroupId( artifactCoordinate.getGroupId() );
+        pomCoordinate.setArtifactId( artifactCoordinate.getArtifactId() );
+        pomCoordinate.setVersion( artifactCoordinate.getVersion() );
+        pomCoordinate.setExtension( "pom" );
+        try {
+            File pomFile = resolveArtifact( buildingRequest, pomCoordinate ).getFile();
+            if ( pomFile != null ) {
+                repositoryMirror.add( pomCoordinate, pomFile );
+            }
+        } catch ( ArtifactResolverException e ) {
+            getLog().warn( "Couldn't add the pom of " + toKey( artifactCoordinate ) + " to the mirror: "
+                    + e.getMessage() );
+        }
+    }
+
+    /**
+     * Download a checksum file of an artifact from the repository the artifact came from.  The checksum file
+     * itself is requested without checksum validation.
+     *
+     * @return the checksum file or null if the repository doesn't have it
+     */
+    private File getChecksumFile(final ProjectBuildingRequest buildingRequest,
+                                 final ArtifactCoordinate artifactCoordinate, final String repositoryId,
+                                 final String extension) throws IOException {
+        DefaultArtifactCoordinate checksumCoordinate = new DefaultArtifactCoordinate();
+        checksumCoordinate.setGroupId( artifactCoordinate.getGroupId() );
+        checksumCoordinate.setArtifactId( artifactCoordinate.getArtifactId() );
+        checksumCoordinate.setVersion( artifactCoordinate.getVersion() );
+        checksumCoordinate.setClassifier( artifactCoordinate.getClassifier() );
+        checksumCoordinate.setExtension( artifactCoordinate.getExtension() + "." + extension );
+        ArtifactRepositoryPolicy ignore = new ArtifactRepositoryPolicy( true,
+                ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS, ArtifactRepositoryPolicy.CHECKSUM_POLICY_IGNORE );
+        List<ArtifactRepository> repositories = new ArrayList<>();
+        for ( ArtifactRepository repository : buildingRequest.getRemoteRepositories() ) {
+            if ( repositoryId == null || repositoryId.equals( repository.getId() ) ) {
+                MavenArtifactRepository checksumRepository = new MavenArtifactRepository( repository.getId(),
+                        repository.getUrl(), repository.getLayout(), ignore, ignore );
+                checksumRepository.setAuthentication( repository.getAuthentication() );
+                checksumRepository.setProxy( repository.getProxy() );
+                checksumRepository.setMirroredRepositories( repository.getMirroredRepositories() );
+                repositories.add( checksumRepository );
+            }
+        }
+        ProjectBuildingRequest checksumRequest = new DefaultProjectBuildingRequest( buildingRequest );
+        checksumRequest.setRemoteRepositories( repositories );
+        try {
+            return requestArtifact( checksumRequest, checksumCoordinate ).getArtifact().getFile();
+        } catch ( ArtifactResolverException e ) {
+            if ( NegativeResolutionCache.isNotFound( e ) ) {
+                return null;
+            }
+            throw new IOException( "Couldn't download the " + extension + " checksum of " + artifactCoordinate
+                    + ": " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Wait for the checksum verifications, record their cost and report the quarantined artifacts as well as the
+     * verified ones that couldn't be exported afterwards.
+     *
+     * @return the keys of the artifacts that were quarantined or couldn't be verified
+     */
+    private Set<String> awaitVerifications() throws MojoExecutionException {
+        Set<String> failed = new LinkedHashSet<>();
+        for ( Map.Entry<String, Future<ChecksumVerifier.Result>> verification : verifications.entrySet() ) {
+            try {
+                ChecksumVerifier.Result result = verification.getValue().get();
+                metrics.recordVerification( result.getKey(), result.getOutcome().name(), result.getElapsedNanos(),
+                        result.getBytes() );
+                if ( result.getOutcome() == ChecksumVerifier.Outcome.QUARANTINED ) {
+                    failed.add( result.getKey() );
+                    getLog().error( "The " + result.getMismatch() + " checksum of " + result.getKey()
+                            + " doesn't match, moved it to " + result.getQuarantinedFile() );
+                } else if ( getLog().isDebugEnabled() ) {
+                    getLog().debug( "Verified " + result.getKey() + " " + result.getAlgorithms() + " in "
+                            + TimeUnit.NANOSECONDS.toMillis( result.getElapsedNanos() ) + " ms" );
+                }
+            } catch ( ExecutionException e ) {
+                failed.add( verification.getKey() );
+                getLog().warn( "Couldn't verify " + verification.getKey() + ": " + e.getCause().getMessage(),
+                        e.getCause() );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException( "Interrupted while verifying checksums", e );
+            }
+        }
+        verifications.clear();
+        checksumFailures.addAll( failed );
+        for ( Map.Entry<String, IOException> publishFailure : publishFailures.entrySet() ) {
+            getLog().error( "Couldn't export " + publishFailure.getKey() + " after verifying it: "
+                    + publishFailure.getValue().getMessage(), publishFailure.getValue() );
+        }
+        return failed;
+    }
+
+    /**
+     * Resolve a single artifact, using the copy in the local repository when {@link #preferLocal} allows it.
+     * With {@link #sharedLocalRepository} the artifact is locked while it is downloaded, and a file that another
+     * process wrote while this one waited for the lock is used as is.
+     */
+    private ResolvedArtifact resolveArtifact(final ProjectBuildingRequest buildingRequest,
+                                             final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException, IOException {
+        File localFile = findInLocalRepository( buildingRequest, artifactCoordinate );
+        if ( localFile != null ) {
+            return new ResolvedArtifact( artifactCoordinate, localFile, true, null, 0 );
+        }
+        if ( resolutionLocks == null ) {
+            return resolveRemotely( buildingRequest, artifactCoordinate );
+        }
+        File file = new File( buildingRequest.getRepositorySession().getLocalRepository().getBasedir(),
+                getLocalPath( buildingRequest, artifactCoordinate ) );
+        long lastModified = file.lastModified();
+        try ( ResolutionLocks.Lock lock = resolutionLocks.acquire( toKey( artifactCoordinate ) ) ) {
+            if ( !ArtifactUtils.isSnapshot( artifactCoordinate.getVersion() ) && file.isFile()
+                    && file.lastModified() != lastModified ) {
+                coalescedCount.incrementAndGet();
+                return new ResolvedArtifact( artifactCoordinate, file, true, null, 0 );
+            }
+            return resolveRemotely( buildingRequest, artifactCoordinate );
+        }
+    }
+
+    /**
+     * Resolve an artifact from the remote repositories whose circuit breaker lets requests through.
+     */
+    private ResolvedArtifact resolveRemotely(final ProjectBuildingRequest buildingRequest,
+                                             final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException {
+        List<ArtifactRepository> repositories = circuitBreaker.allowed( buildingRequest.getRemoteRepositories() );
+        if ( repositories.isEmpty() && !buildingRequest.getRemoteRepositories().isEmpty() ) {
+            throw new ArtifactResolverException( "Not resolving " + artifactCoordinate
+                    + ", every repository failed repeatedly and is skipped for now", null );
+        }
+        ArtifactCoordinate requestCoordinate = artifactCoordinate;
+        if ( SnapshotMetadataCache.isSnapshot( artifactCoordinate.getVersion() ) ) {
+            SnapshotMetadataCache.Resolution snapshot = snapshotMetadataCache.resolve(
+                    buildingRequest.getRepositorySession(), RepositoryUtils.toRepos( repositories ),
+                    artifactCoordinate );
+            if ( snapshot != null ) {
+                requestCoordinate = withVersion( artifactCoordinate, snapshot.getVersion() );
+                for ( ArtifactRepository repository : repositories ) {
+                    if ( repository.getId().equals( snapshot.getRepositoryId() ) ) {
+                        repositories = Collections.singletonList( repository );
+                        break;
+                    }
+                }
+            }
+        }
+        if ( repositories.size() == buildingRequest.getRemoteRepositories().size() ) {
+            return resolveFromRepositories( buildingRequest, repositories, requestCoordinate, artifactCoordinate );
+        }
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest( buildingRequest );
+        request.setRemoteRepositories( repositories );
+        try {
+            return resolveFromRepositories( request, repositories, requestCoordinate, artifactCoordinate );
+        } catch ( ArtifactResolverException e ) {
+            if ( NegativeResolutionCache.isNotFound( e ) ) {
+                throw new IncompleteResolutionException( artifactCoordinate + " was not found in "
+                        + repositories.stream().map( ArtifactRepository::getId ).collect( Collectors.toList() )
+                        + ", the other repositories were not asked", e );
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolve an artifact from the given repositories, which are the remote repositories of the request.
+     */
+    private ResolvedArtifact resolveFromRepositories(final ProjectBuildingRequest request,
+                                                     final List<ArtifactRepository> repositories,
+                                                     final ArtifactCoordinate requestCoordinate,
+                                                     final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException {
+        if ( repositoryScheduling && repositories.size() > 1 ) {
+            return resolveFromScheduledRepositories( request, artifactCoordinate );
+        }
+        String repositoryId = repositories.size() == 1 ? repositories.get( 0 ).getId() : null;
+        long start = System.nanoTime();
+        ResolvedArtifact resolvedArtifact;
+        try {
+            resolvedArtifact = downloadArtifact( request, requestCoordinate, artifactCoordinate, repositoryId );
+        } catch ( ArtifactResolverException e ) {
+            circuitBreaker.recordTransferFailure( e, repositoryId );
+            if ( repositoryId != null ) {
+                metrics.recordRepositoryRequest( repositoryId, System.nanoTime() - start, false );
+            }
+            throw e;
+        }
+        if ( repositoryId != null && !resolvedArtifact.isFromLocalRepository() ) {
+            circuitBreaker.recordSuccess( repositoryId );
+            metrics.recordRepositoryRequest( repositoryId, System.nanoTime() - start, true );
+        }
+        return resolvedArtifact;
+    }
+
+    /**
+     * Request an artifact and tell from the transfers whether it was downloaded or the resolver found it in the
+     * local repository.
+     */
+    private ResolvedArtifact downloadArtifact(final ProjectBuildingRequest request,
+                                              final ArtifactCoordinate requestCoordinate,
+                                              final ArtifactCoordinate artifactCoordinate,
+                                              final String repositoryId)
+            throws ArtifactResolverException {
+        ArtifactResult artifactResult;
+        long downloaded;
+        hostConnectionPool.startCounting();
+        try {
+            artifactResult = requestArtifact( request, requestCoordinate );
+        } finally {
+            downloaded = hostConnectionPool.stopCounting();
+        }
+        File file = artifactResult.getArtifact().getFile();
+        return downloaded < 0 ? new ResolvedArtifact( artifactCoordinate, file, true, null, 0 )
+                : new ResolvedArtifact( artifactCoordinate, file, false, repositoryId, downloaded );
+    }
+
+    /**
+     * Hand a request for an artifact to the resolver once the {@link HostConnectionPool} lets it through to the
+     * hosts of all of its repositories.
+     */
+    private ArtifactResult requestArtifact(final ProjectBuildingRequest request,
+                                           final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException {
+        try ( HostConnectionPool.Permit permit = acquirePermit( request ) ) {
+            return artifactResolver.resolveArtifact( request, artifactCoordinate );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new ArtifactResolverException( "Interrupted while waiting to request " + artifactCoordinate, e );
+        }
+    }
+
+    /**
+     * Send a metadata request to its repository once the {@link HostConnectionPool} lets it through, and record its
+     * outcome with the circuit breaker and the metrics of the repository like the requests for artifacts.
+     */
+    private MetadataResult fetchMetadata(final RepositorySystemSession session, final MetadataRequest request)
+            throws IOException {
+        RemoteRepository repository = request.getRepository();
+        long start = System.nanoTime();
+        MetadataResult result;
+        try ( HostConnectionPool.Permit permit =
+                      hostConnectionPool.acquire( Collections.singletonList( repository.getUrl() ) ) ) {
+            result = repoSystem.resolveMetadata( session, Collections.singletonList( request ) ).get( 0 );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting to request " + request.getMetadata() );
+        }
+        Exception exception = result.getException();
+        if ( exception == null || exception instanceof MetadataNotFoundException ) {
+            circuitBreaker.recordSuccess( repository.getId() );
+        } else {
+            circuitBreaker.recordFailure( repository.getId(), exception );
+        }
+        if ( result.isUpdated() || exception != null ) {
+            metrics.recordRepositoryRequest( repository.getId(), System.nanoTime() - start,
+                    result.getMetadata() != null && result.getMetadata().getFile() != null );
+        }
+        return result;
+    }
+
+    /**
+     * Wait until the {@link HostConnectionPool} lets a request through to the hosts of all of its repositories.
+     */
+    private HostConnectionPool.Permit acquirePermit(final ProjectBuildingRequest request)
+            throws InterruptedException {
+        List<String> repositoryUrls = new ArrayList<>();
+        for ( ArtifactRepository repository : request.getRemoteRepositories() ) {
+            repositoryUrls.add( repository.getUrl() );
+        }
+        return hostConnectionPool.acquire( repositoryUrls );
+    }
+
+    private static ArtifactCoordinate withVersion(final ArtifactCoordinate artifactCoordinate, final String version) {
+        DefaultArtifactCoordinate versioned = new DefaultArtifactCoordinate();
+        versioned.setGroupId( artifactCoordinate.getGroupId() );
+        versioned.setArtifactId( artifactCoordinate.getArtifactId() );
+        versioned.setVersion( version );
+        versioned.setClassifier( artifactCoordinate.getClassifier() );
+        versioned.setExtension( artifactCoordinate.getExtension() );
+        return versioned;
+    }
+
+    /**
+     * Try the remote repositories one at a time in the order of the {@link RepositoryScheduler}.  When every
+     * repository fails, a failure other than not found is preferred so that it isn't recorded as missing.
+     */
+    private ResolvedArtifact resolveFromScheduledRepositories(final ProjectBuildingRequest buildingRequest,
+                                                              final ArtifactCoordinate artifactCoordinate)
+            throws ArtifactResolverException {
+        ArtifactResolverException notFound = null;
+        ArtifactResolverException failure = null;
+        for ( ArtifactRepository repository : repositoryScheduler.order( buildingRequest.getRemoteRepositories() ) ) {
+            ProjectBuildingRequest repositoryRequest = new DefaultProjectBuildingRequest( buildingRequest );
+            repositoryRequest.setRemoteRepositories( Collections.singletonList( repository ) );
+            long start = System.nanoTime();
+            try {
+                ResolvedArtifact resolvedArtifact = downloadArtifact( repositoryRequest, artifactCoordinate,
+                        artifactCoordinate, repository.getId() );
+                if ( !resolvedArtifact.isFromLocalRepository() ) {
+                    long elapsed = System.nanoTime() - start;
+                    repositoryScheduler.record( repository.getId(), elapsed, true );
+                    circuitBreaker.recordSuccess( repository.getId() );
+                    metrics.recordRepositoryRequest( repository.getId(), elapsed, true );
+                }
+                return resolvedArtifact;
+            } catch ( ArtifactResolverException e ) {
+                long elapsed = System.nanoTime() - start;
+                repositoryScheduler.record( repository.getId(), elapsed, false );
+                circuitBreaker.recordFailure( repository.getId(), e );
+                metrics.recordRepositoryRequest( repository.getId(), elapsed, false );
+                if ( NegativeResolutionCache.isNotFound( e ) ) {
+                    notFound = notFound == null ? e : notFound;
+                } else {
+                    failure = failure == null ? e : failure;
+                }
+            }
+        }
+        throw failure != null ? failure : notFound;
+    }
+
+    /**
+     * Look for a release artifact in the local repository.  A file that is unchanged since it was recorded in the
+     * manifest of an earlier run is used as is, any other file is only used when it matches the checksum file
+     * next to it, if there is one.  When the groupId is in the {@link #localIndex} the file system is only read to
+     * verify the checksum.
+     */
+    private File findInLocalRepository(final ProjectBuildingRequest buildingRequest,
+                                       final ArtifactCoordinate artifactCoordinate) {
+        String path = getLocalPath( buildingRequest, artifactCoordinate );
+        File file = new File( buildingRequest.getRepositorySession().getLocalRepository().getBasedir(), path );
+        boolean indexed = localRepositoryIndex != null
+                && localRepositoryIndex.isIndexed( artifactCoordinate.getGroupId() );
+        LocalRepositoryIndex.FileState state = indexed ? localRepositoryIndex.get( path ) : null;
+        if ( indexed && state == null ) {
+            return null;
+        }
+        ResolutionManifest.Entry previousEntry = previousEntries.get( toKey( artifactCoordinate ) );
+        if ( previousEntry != null && ( indexed ? previousEntry.isUnchanged( state.getSize(), state.getLastModified() )
+                : previousEntry.isUnchanged( file ) ) ) {
+            unchangedCount.incrementAndGet();
+            return file;
+        }
+        if ( !preferLocal || ArtifactUtils.isSnapshot( artifactCoordinate.getVersion() ) ) {
+            return null;
+        }
+        try {
+            if ( indexed ) {
+                if ( Checksums.matchesChecksumFile( file, localRepositoryIndex.get( path + ".sha1" ) != null,
+                        localRepositoryIndex.get( path + ".md5" ) != null ) ) {
+                    return file;
+                }
+            } else if ( file.isFile() && Checksums.matchesChecksumFile( file ) ) {
+                return file;
+            }
+        } catch ( IOException e ) {
+            getLog().debug( "Couldn't verify " + file + ": " + e.getMessage(), e );
+        }
+        return null;
+    }
+
+    /**
+     * The path of the artifact relative to the local repository.
+     */
+    private String getLocalPath(final ProjectBuildingRequest buildingRequest,
+                                final ArtifactCoordinate artifactCoordinate) {
+        LocalRepositoryManager localRepositoryManager =
+                buildingRequest.getRepositorySession().getLocalRepositoryManager();
+        return localRepositoryManager.getPathForLocalArtifact( new DefaultArtifact(
+                artifactCoordinate.getGroupId(), artifactCoordinate.getArtifactId(),
+                artifactCoordinate.getClassifier(), artifactCoordinate.getExtension(),
+                artifactCoordinate.getVersion() ) );
+    }
+
+    private void loadLocalRepositoryIndex(final ProjectBuildingRequest buildingRequest) {
+        File baseDir = buildingRequest.getRepositorySession().getLocalRepository().getBasedir();
+        File file = localIndexFile != null ? localIndexFile
+                : Paths.get( baseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "local-index" ).toFile();
+        long start = System.nanoTime();
+        LocalRepositoryIndex index = new LocalRepositoryIndex( baseDir, file );
+        try {
+            index.load();
+        } catch ( IOException e ) {
+            getLog().warn( "Couldn't read the local repository index " + file + ", rebuilding it: " + e.getMessage() );
+            index = new LocalRepositoryIndex( baseDir, file );
+        }
+        localIndexNanos.addAndGet( System.nanoTime() - start );
+        localRepositoryIndex = index;
+    }
+
+    /**
+     * Index a groupId unless it is indexed already.  A groupId that couldn't be indexed is looked up on the file
+     * system.
+     */
+    private void refreshLocalRepositoryIndex(final String groupId) {
+        long start = System.nanoTime();
+        try {
+            localRepositoryIndex.refresh( Collections.singleton( groupId ) );
+        } catch ( IOException e ) {
+            getLog().warn( "Couldn't index the local repository: " + e.getMessage(), e );
+        }
+        localIndexNanos.addAndGet( System.nanoTime() - start );
+    }
+
+    private void saveLocalRepositoryIndex() {
+        LocalRepositoryIndex index = localRepositoryIndex;
+        getLog().info( "Indexed the local repository for " + index.getIndexedCount() + " groupIds, listed "
+                + index.getListedCount() + " changed directories and reused " + index.getReusedCount() );
+        long start = System.nanoTime();
+        try {
+            index.save();
+        } catch ( IOException e ) {
+            getLog().warn( "Couldn't save the local repository index " + index.getIndexFile() + ": "
+                    + e.getMessage(), e );
+        }
+        metrics.recordPhase( "local index", localIndexNanos.addAndGet( System.nanoTime() - start ) );
+    }
+
+    private String getUpdatePolicy() throws MojoExecutionException {
+        if ( ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( updatePolicy )
+                || ArtifactRepositoryPolicy.UPDATE_POLICY_DAILY.equals( updatePolicy )
+                || ArtifactRepositoryPolicy.UPDATE_POLICY_NEVER.equals( updatePolicy )
+                || updatePolicy.matches( ArtifactRepositoryPolicy.UPDATE_POLICY_INTERVAL + ":\\d+" ) ) {
+            return updatePolicy;
+        }
+        throw new MojoExecutionException( "Invalid update policy " + updatePolicy
+                + ", it must be always, daily, never or interval:minutes" );
+    }
+
+    /**
+     * The key of the manifest of a root artifact: the artifact, the classifiers, the way the graph is built and
+     * the repositories.
+     */
+    private String getManifestKey(final DependableCoordinate root, final List<String> rootClassifiers,
+                                  final List<ArtifactRepository> repositories) {
+        StringBuilder key = new StringBuilder( root.getGroupId() + ":" + root.getArtifactId() + ":" + root.getType()
+                + ":" + ( root.getClassifier() == null ? "" : root.getClassifier() ) + ":" + root.getVersion() );
+        if ( rootClassifiers.size() > 1 || !Objects.equals( rootClassifiers.get( 0 ), root.getClassifier() ) ) {
+            key.append( " classifiers=" ).append( rootClassifiers );
+        }
+        if ( graphFilter != null ) {
+            key.append( ' ' ).append( graphFilter );
+        }
+        key.append( " collectOnly=" ).append( collectOnly ).append( " repositories=" );
+        for ( ArtifactRepository repository : repositories ) {
+            key.append( repository.getId() ).append( '@' ).append( repository.getUrl() ).append( ',' );
+        }
+        return key.toString();
+    }
+
+    /**
+     * Read the dependency graph of a root artifact with a release version from the manifest of an earlier run.
+     *
+     * @return the graph or null if it has to be collected
+     */
+    private List<ArtifactCoordinate> readManifest(final DependableCoordinate root, final String manifestKey) {
+        String rootVersion = root.getVersion();
+        if ( !incremental || ArtifactUtils.isSnapshot( rootVersion ) || rootVersion.startsWith( "[" )
+                || rootVersion.startsWith( "(" ) || Artifact.LATEST_VERSION.equals( rootVersion )
+                || Artifact.RELEASE_VERSION.equals( rootVersion ) ) {
+            return null;
+        }
+        try {
+            ResolutionManifest manifest = ResolutionManifest.read( getManifestDirectory(), manifestKey );
+            if ( manifest == null ) {
+                return null;
+            }
+            List<ArtifactCoordinate> rootCoordinates = new ArrayList<>( manifest.getEntries().size() );
+            for ( ResolutionManifest.Entry entry : manifest.getEntries() ) {
+                previousEntries.put( entry.getKey(), entry );
+                rootCoordinates.add( entry.toCoordinate() );
+            }
+            getLog().info( "Reusing the dependency graph of " + root + " from the manifest of an earlier run" );
+            return rootCoordinates;
+        } catch ( IOException e ) {
+            getLog().warn( "Couldn't read the manifest of " + root + ": " + e.getMessage(), e );
+            return null;
+        }
+    }
+
+    private void writeManifest(final String manifestKey, final List<ArtifactCoordinate> rootCoordinates,
+                               final Map<String, ResolvedArtifact> resolvedArtifacts) {
+        List<ResolutionManifest.Entry> entries = new ArrayList<>( rootCoordinates.size() );
+        try {
+            for ( ArtifactCoordinate artifactCoordinate : rootCoordinates ) {
+                String key = toKey( artifactCoordinate );
+                ResolvedArtifact resolvedArtifact = resolvedArtifacts.get( key );
+                ResolutionManifest.Entry previousEntry = previousEntries.get( key );
+                if ( resolvedArtifact != null && resolvedArtifact.getFile() != null ) {
+                    File file = resolvedArtifact.getFile();
+                    boolean unchanged = previousEntry != null && previousEntry.isUnchanged( file );
+                    entries.add( new ResolutionManifest.Entry( key, ResolutionManifest.Status.RESOLVED,
+                            unchanged ? previousEntry.getSha1() : Checksums.hash( file, "SHA-1" ), file.length(),
+                            file.lastModified(), resolvedArtifact.getRepositoryId() != null
+                                    ? resolvedArtifact.getRepositoryId()
+                                    : previousEntry != null ? previousEntry.getRepositoryId() : null ) );
+                } else {
+                    entries.add( new ResolutionManifest.Entry( key, missingKeys.contains( key )
+                            ? ResolutionManifest.Status.MISSING : ResolutionManifest.Status.FAILED,
+                            null, 0, 0, null ) );
+                }
+            }
+            new ResolutionManifest( manifestKey, entries ).write( getManifestDirectory() );
+        } catch ( IOException e ) {
+            getLog().warn( "Couldn't write the manifest: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Apply the timeouts and size the connections to every repository host for the run.  The session keeps one
+     * connection pool for all of the requests of the run, which is only lost if caching of the transport state is
+     * turned off.  The session also gets a cache if it has none, so that versions and metadata that the graphs
+     * share are resolved once in the run.
+     */
+    private void configureTransport(final ProjectBuildingRequest buildingRequest) {
+        DefaultRepositorySystemSession transportSession =
+                new DefaultRepositorySystemSession( buildingRequest.getRepositorySession() );
+        if ( connectTimeout != null ) {
+            transportSession.setConfigProperty( ConfigurationProperties.CONNECT_TIMEOUT, connectTimeout );
+        }
+        if ( readTimeout != null ) {
+            transportSession.setConfigProperty( ConfigurationProperties.REQUEST_TIMEOUT, readTimeout );
+        }
+        if ( !ConfigUtils.getBoolean( transportSession, true, "aether.connector.http.cacheState" )
+                || "false".equalsIgnoreCase( System.getProperty( "maven.wagon.http.pool" ) ) ) {
+            getLog().warn( "Connection pooling is turned off, every request opens a new connection" );
+        }
+        if ( transportSession.getCache() == null ) {
+            transportSession.setCache( new DefaultRepositoryCache() );
+        }
+        hostConnectionPool = new HostConnectionPool( maxConnectionsPerHost > 0 ? maxConnectionsPerHost : threads,
+                maxConcurrentDownloads, maxBytesPerSecond );
+        transportSession.setTransferListener(
+                ChainedTransferListener.newInstance( transportSession.getTransferListener(), hostConnectionPool ) );
+        buildingRequest.setRepositorySession( transportSession );
+    }
+
+    /**
+     * Add the {@link DependencyGraphFilter} to the dependency selector of the repository session so that the
+     * filtered dependencies are pruned while the graph is collected.
+     */
+    private void applyGraphFilter(final ProjectBuildingRequest buildingRequest) throws MojoExecutionException {
+        DependencyGraphFilter filter;
+        try {
+            filter = new DependencyGraphFilter( includes, excludes,
+                    scopes == null ? null : new HashSet<>( scopes ), maxDepth );
+        } catch ( IllegalArgumentException e ) {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+        if ( !filter.isActive() ) {
+            return;
+        }
+        graphFilter = filter;
+        DefaultRepositorySystemSession filteredSession =
+                new DefaultRepositorySystemSession( buildingRequest.getRepositorySession() );
+        DependencySelector selector = filteredSession.getDependencySelector();
+        filteredSession.setDependencySelector( selector == null ? filter : new AndDependencySelector( selector, filter ) );
+        buildingRequest.setRepositorySession( filteredSession );
+        getLog().info( "Filtering the dependency graph: " + filter );
+    }
+
+    private File getManifestDirectory() {
+        return manifestDirectory != null ? manifestDirectory
+                : Paths.get( session.getRepositorySession().getLocalRepository().getBasedir().getAbsolutePath(),
+                        ".cache", "extended-dependency-plugin", "manifests" ).toFile();
+    }
+
+    private NegativeResolutionCache createNegativeCache(final ProjectBuildingRequest buildingRequest) {
+        if ( negativeCacheTtl <= 0 ) {
+            return null;
+        }
+        File file = negativeCacheFile != null ? negativeCacheFile
+                : Paths.get( buildingRequest.getRepositorySession().getLocalRepository().getBasedir().getAbsolutePath(),
+                        ".cache", "extended-dependency-plugin", "missing.properties" ).toFile();
+        NegativeResolutionCache negativeCache = new NegativeResolutionCache( file, negativeCacheTtl );
+        if ( refreshNegativeCache ) {
+            getLog().info( "Ignoring the artifacts previously recorded as missing in " + file );
+        } else {
+            try {
+                negativeCache.load();
+            } catch ( IOException e ) {
+                getLog().warn( "Couldn't read the missing artifacts from " + file + ": " + e.getMessage(), e );
+            }
+        }
+        return negativeCache;
+    }
+
+    private void saveNegativeCache(final NegativeResolutionCache negativeCache) {
+        if ( negativeCache == null ) {
+            return;
+        }
+        try {
+            negativeCache.save();
+        } catch ( IOException e ) {
+            getLog().warn( "Couldn't save the missing artifacts: " + e.getMessage(), e );
+        }
+    }
+
+    private ArtifactCoordinate toArtifactCoordinate(final ArtifactResult artifactResult, final String nodeClassifier) {
+        Artifact artifact = artifactResult.getArtifact();
+        ArtifactHandler artifactHandler = artifactHandlerManager.getArtifactHandler( artifact.getType() );
+        DefaultArtifactCoordinate artifactCoordinate = new DefaultArtifactCoordinate();
+        artifactCoordinate.setGroupId( artifact.getGroupId() );
+        artifactCoordinate.setArtifactId( artifact.getArtifactId() );
+        artifactCoordinate.setVersion( artifact.getVersion() );
+        artifactCoordinate.setClassifier( nodeClassifier );
+        artifactCoordinate.setExtension( artifactHandler.getExtension() );
+        return artifactCoordinate;
+    }
+
+
+    ArtifactRepository parseRepository(final  String repo, final ArtifactRepositoryPolicy policy ) throws MojoExecutionException {
+        // if it's a simple url
+        String id = "temp";
+        ArtifactRepositoryLayout layout = getLayout( "default" );
+        String url = repo;
+
+        // if it's an extended repo URL of the form id::layout::url
+        if ( repo.contains( "::" ) ) {
+            Matcher matcher = ALT_REPO_SYNTAX_PATTERN.matcher( repo );
+            if ( !matcher.matches() ) {
+                throw new MojoExecutionException( repo, "Invalid syntax for repository: " + repo,
+                        "Invalid syntax for repository. Use \"id::layout::url\" or \"URL\"." );
+            }
+
+            id = matcher.group( 1 ).trim();
+            if ( !StringUtils.isEmpty( matcher.group( 2 ) ) ) {
+                layout = getLayout( matcher.group( 2 ).trim() );
+            }
+            url = matcher.group( 3 ).trim();
+        }
+        return new MavenArtifactRepository( id, url, layout, policy, policy );
     }
 
     private ArtifactRepositoryLayout getLayout(final String id ) throws MojoExecutionException {
@@ -295,14 +2057,123 @@ public class GetMojo extends AbstractMojo {
         return layout;
     }
 
-    private ArtifactCoordinate toArtifactCoordinate(DependableCoordinate dependableCoordinate ) {
+    private ArtifactCoordinate toArtifactCoordinate(DependableCoordinate dependableCoordinate, String nodeClassifier ) {
         ArtifactHandler artifactHandler = artifactHandlerManager.getArtifactHandler( dependableCoordinate.getType() );
         DefaultArtifactCoordinate artifactCoordinate = new DefaultArtifactCoordinate();
         artifactCoordinate.setGroupId( dependableCoordinate.getGroupId() );
         artifactCoordinate.setArtifactId( dependableCoordinate.getArtifactId() );
         artifactCoordinate.setVersion( dependableCoordinate.getVersion() );
-        artifactCoordinate.setClassifier( dependableCoordinate.getClassifier() );
+        artifactCoordinate.setClassifier( nodeClassifier );
         artifactCoordinate.setExtension( artifactHandler.getExtension() );
         return artifactCoordinate;
     }
+
+    /**
+     * Offers the nodes of one dependency graph to the pipeline while the graph is walked, once for every classifier,
+     * and logs their results in the order in which they were offered, whatever the order in which they complete.
+     * Only the coordinates of the nodes are kept, and only if the graph goes into a manifest.
+     */
+    private final class GraphWalk implements DependencyVisitor {
+
+        private final ResolutionPipeline<ResolvedArtifact> pipeline;
+        private final List<String> nodeClassifiers;
+        private final List<ArtifactCoordinate> coordinates;
+        private final Set<String> visited = new HashSet<>();
+        private CompletableFuture<Void> report = CompletableFuture.completedFuture( null );
+        private InterruptedException interrupted;
+
+        GraphWalk(final ResolutionPipeline<ResolvedArtifact> pipeline, final List<String> nodeClassifiers,
+                  final boolean keepCoordinates) {
+            this.pipeline = pipeline;
+            this.nodeClassifiers = nodeClassifiers;
+            this.coordinates = keepCoordinates ? new ArrayList<ArtifactCoordinate>() : null;
+        }
+
+        /**
+         * Walk a collected tree depth first, skipping the nodes that were reached before.
+         */
+        void walk(final DependencyNode rootNode) throws InterruptedException {
+            rootNode.accept( this );
+            if ( interrupted != null ) {
+                throw interrupted;
+            }
+        }
+
+        @Override
+        public boolean visitEnter(final DependencyNode node) {
+            org.eclipse.aether.artifact.Artifact nodeArtifact = node.getArtifact();
+            if ( nodeArtifact == null ) {
+                return true;
+            }
+            if ( !visited.add( nodeArtifact.getGroupId() + ":" + nodeArtifact.getArtifactId() + ":"
+                    + nodeArtifact.getExtension() + ":" + nodeArtifact.getVersion() ) ) {
+                return false;
+            }
+            try {
+                for ( String nodeClassifier : nodeClassifiers ) {
+                    DefaultArtifactCoordinate artifactCoordinate = new DefaultArtifactCoordinate();
+                    artifactCoordinate.setGroupId( nodeArtifact.getGroupId() );
+                    artifactCoordinate.setArtifactId( nodeArtifact.getArtifactId() );
+                    artifactCoordinate.setVersion( nodeArtifact.getVersion() );
+                    artifactCoordinate.setClassifier( nodeClassifier );
+                    artifactCoordinate.setExtension( nodeArtifact.getExtension() );
+                    offer( artifactCoordinate );
+                }
+            } catch ( InterruptedException e ) {
+                interrupted = e;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visitLeave(final DependencyNode node) {
+            return interrupted == null;
+        }
+
+        /**
+         * Offer a resolved artifact once for every classifier.
+         */
+        void offer(final ArtifactResult artifactResult) throws InterruptedException {
+            for ( String nodeClassifier : nodeClassifiers ) {
+                offer( toArtifactCoordinate( artifactResult, nodeClassifier ) );
+            }
+        }
+
+        /**
+         * Offer a node to the pipeline, bringing the {@link #localIndex} up to date for its groupId first.
+         */
+        void offer(final ArtifactCoordinate artifactCoordinate) throws InterruptedException {
+            if ( coordinates != null ) {
+                coordinates.add( artifactCoordinate );
+            }
+            if ( localRepositoryIndex != null ) {
+                refreshLocalRepositoryIndex( artifactCoordinate.getGroupId() );
+            }
+            CompletableFuture<ResolvedArtifact> completion =
+                    pipeline.offer( toKey( artifactCoordinate ), artifactCoordinate );
+            if ( completion != null ) {
+                CompletableFuture<Runnable> log = completion.handle( ( resolvedArtifact, failure ) ->
+                        () -> logNode( artifactCoordinate, resolvedArtifact, failure ) );
+                report = report.thenCombine( log, ( previous, logged ) -> {
+                    logged.run();
+                    return null;
+                } );
+            }
+        }
+
+        /**
+         * The coordinates of the nodes in the order in which they were walked, or null if they were not kept.
+         */
+        List<ArtifactCoordinate> getCoordinates() {
+            return coordinates;
+        }
+
+        /**
+         * Completes once the results of all of the nodes offered so far are logged.
+         */
+        CompletableFuture<Void> getReport() {
+            return report;
+        }
+    }
 }
@@ -0,0 +1,316 @@
+package com.github.vincentrussell;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes the connections to every repository host.  A request for an artifact waits for a permit of the host of every
+ * repository it is sent to before it is handed to the resolver, so the requests of a run never need more
+ * connections to a host than the keep-alive pool of the transport holds.  The permits are taken before the request
+ * starts rather than by its transfers, so a waiting request doesn't hold a connection or a session lock of the
+ * transport; the basic connector runs the single transfer of such a request on the thread that holds the permit.
+ * <p>
+ * Collecting or resolving a dependency graph runs several transfers at a time on the threads of the connector.
+ * Those transfers hold no permit of a request, so each of them takes the permit of its host when it is initiated,
+ * before the connector opens a connection for it, and gives it back when it is over.
+ * <p>
+ * The transports don't tell how many connections they opened or reused, so only what is observed here is
+ * reported: the number of transfers to every host and the most of them that ran at the same time.  The bytes the
+ * artifact transfers of a thread download can be counted as well, which tells a request that was answered by the
+ * local repository of the resolver from one that went to a remote repository.
+ * <p>
+ * The requests to all hosts together can be capped as well, and the transfers can share a budget of bytes per
+ * second: a transfer that got ahead of the budget pauses between the chunks it reads until the budget catches up.
+ */
+public class HostConnectionPool extends AbstractTransferListener {
+
+    private final int maxPerHost;
+    private final Semaphore totalPermits;
+    private final long bytesPerSecond;
+    private final AtomicLong throttledNanos = new AtomicLong();
+    private long budgetNanos;
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TransferResource, Transfer> transfers = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> downloadedBytes = new ThreadLocal<>();
+    private final ThreadLocal<Permit> heldPermits = new ThreadLocal<>();
+
+    /**
+     * @param maxPerHost     the number of requests to a host that run at the same time, or 0 for no limit
+     * @param maxTotal       the number of requests to all hosts that run at the same time, or 0 for no limit
+     * @param bytesPerSecond the bytes that all transfers together read per second, or 0 for no limit
+     */
+    public HostConnectionPool(final int maxPerHost, final int maxTotal, final long bytesPerSecond) {
+        this.maxPerHost = maxPerHost;
+        this.totalPermits = maxTotal > 0 ? new Semaphore( maxTotal, true ) : null;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Wait until a request to the repositories may start.  The permit of all hosts is taken first and then the
+     * permits of the hosts in the order of their names, so two requests never wait for each other.
+     *
+     * @param repositoryUrls the urls of the repositories the request is sent to
+     * @return the permits, to be closed when the request is over
+     */
+    public Permit acquire(final Collection<String> repositoryUrls) throws InterruptedException {
+        Permit permit = acquirePermits( repositoryUrls );
+        permit.held = heldPermits.get();
+        permit.holder = Thread.currentThread();
+        heldPermits.set( permit );
+        return permit;
+    }
+
+    private Permit acquirePermits(final Collection<String> repositoryUrls) throws InterruptedException {
+        Set<String> names = new TreeSet<>();
+        for ( String repositoryUrl : repositoryUrls ) {
+            names.add( getHost( repositoryUrl ) );
+        }
+        Permit permit = new Permit( this );
+        long start = System.nanoTime();
+        try {
+            if ( totalPermits != null ) {
+                totalPermits.acquire();
+                permit.total = true;
+            }
+            for ( String name : names ) {
+                Host host = hosts.computeIfAbsent( name, hostName -> new Host( maxPerHost ) );
+                if ( host.permits != null ) {
+                    host.permits.acquire();
+                }
+                permit.hosts.add( host );
+            }
+        } catch ( InterruptedException e ) {
+            permit.close();
+            throw e;
+        }
+        long waited = System.nanoTime() - start;
+        for ( Host host : permit.hosts ) {
+            host.waited( waited );
+        }
+        return permit;
+    }
+
+    /**
+     * Start counting the bytes of the artifacts that the transfers of the current thread download.  The basic
+     * connector runs a request for a single artifact on the thread that sent it.
+     */
+    public void startCounting() {
+        downloadedBytes.set( new long[] {-1} );
+    }
+
+    /**
+     * Stop counting the bytes of the current thread.
+     *
+     * @return the bytes downloaded since {@link #startCounting()}, or -1 when no artifact was downloaded
+     */
+    public long stopCounting() {
+        long[] counter = downloadedBytes.get();
+        downloadedBytes.remove();
+        return counter != null ? counter[0] : -1;
+    }
+
+    @Override
+    public void transferInitiated(final TransferEvent event) throws TransferCancelledException {
+        String repositoryUrl = event.getResource().getRepositoryUrl();
+        Permit permit = null;
+        if ( heldPermits.get() == null ) {
+            try {
+                permit = acquirePermits( Collections.singletonList( repositoryUrl ) );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new TransferCancelledException( "Interrupted while waiting for a connection to "
+                        + getHost( repositoryUrl ) );
+            }
+        }
+        Host host = hosts.computeIfAbsent( getHost( repositoryUrl ), name -> new Host( maxPerHost ) );
+        host.started();
+        transfers.put( event.getResource(), new Transfer( host, System.nanoTime(), permit ) );
+    }
+
+    @Override
+    public void transferStarted(final TransferEvent event) {
+        Transfer transfer = transfers.get( event.getResource() );
+        if ( transfer != null && transfer.firstByteNanos < 0 ) {
+            transfer.firstByteNanos = System.nanoTime() - transfer.start;
+        }
+    }
+
+    @Override
+    public void transferProgressed(final TransferEvent event) throws TransferCancelledException {
+        if ( bytesPerSecond <= 0 || event.getDataLength() <= 0 ) {
+            return;
+        }
+        long wait;
+        synchronized ( this ) {
+            long now = System.nanoTime();
+            budgetNanos = Math.max( budgetNanos, now ) + event.getDataLength() * TimeUnit.SECONDS.toNanos( 1 )
+                    / bytesPerSecond;
+            wait = budgetNanos - now;
+        }
+        if ( wait > 0 ) {
+            throttledNanos.addAndGet( wait );
+            try {
+                TimeUnit.NANOSECONDS.sleep( wait );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new TransferCancelledException( "Interrupted while waiting for the bandwidth budget" );
+            }
+        }
+    }
+
+    @Override
+    public void transferSucceeded(final TransferEvent event) {
+        finished( event.getResource() );
+        long[] counter = downloadedBytes.get();
+        if ( counter != null && event.getRequestType() == TransferEvent.RequestType.GET
+                && !event.getResource().getResourceName().endsWith( "maven-metadata.xml" ) ) {
+            counter[0] = Math.max( counter[0], 0 ) + event.getTransferredBytes();
+        }
+    }
+
+    @Override
+    public void transferFailed(final TransferEvent event) {
+        finished( event.getResource() );
+    }
+
+    /**
+     * Add the figures of every host to the metrics of the run.
+     */
+    public void report(final ResolutionMetrics metrics) {
+        for ( Map.Entry<String, Host> host : new TreeMap<>( hosts ).entrySet() ) {
+            Host value = host.getValue();
+            synchronized ( value ) {
+                metrics.recordHostTransfers( host.getKey(), value.requests, value.peak,
+                        new ArrayList<>( value.waitNanos ), new ArrayList<>( value.firstByteNanos ) );
+            }
+        }
+        if ( throttledNanos.get() > 0 ) {
+            metrics.increment( "milliseconds paused by the bandwidth budget",
+                    TimeUnit.NANOSECONDS.toMillis( throttledNanos.get() ) );
+        }
+    }
+
+    private void finished(final TransferResource resource) {
+        Transfer transfer = transfers.remove( resource );
+        if ( transfer == null ) {
+            return;
+        }
+        transfer.host.finished( transfer.firstByteNanos );
+        if ( transfer.permit != null ) {
+            transfer.permit.close();
+        }
+    }
+
+    static String getHost(final String repositoryUrl) {
+        try {
+            URI uri = URI.create( repositoryUrl );
+            if ( uri.getHost() != null ) {
+                return uri.getHost() + ( uri.getPort() >= 0 ? ":" + uri.getPort() : "" );
+            }
+        } catch ( IllegalArgumentException e ) {
+            // fall through to the whole url
+        }
+        return repositoryUrl;
+    }
+
+    /**
+     * The permits of a request, released when it is closed.  While a thread holds the permits of a request, its
+     * transfers don't take permits of their own.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final HostConnectionPool pool;
+        private final List<Host> hosts = new ArrayList<>();
+        private boolean total;
+        private Thread holder;
+        private Permit held;
+
+        Permit(final HostConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() {
+            for ( Host host : hosts ) {
+                if ( host.permits != null ) {
+                    host.permits.release();
+                }
+            }
+            hosts.clear();
+            if ( total ) {
+                pool.totalPermits.release();
+                total = false;
+            }
+            if ( holder == Thread.currentThread() ) {
+                if ( held != null ) {
+                    pool.heldPermits.set( held );
+                } else {
+                    pool.heldPermits.remove();
+                }
+                holder = null;
+            }
+        }
+    }
+
+    private static final class Host {
+
+        private final Semaphore permits;
+        private final List<Long> waitNanos = new ArrayList<>();
+        private final List<Long> firstByteNanos = new ArrayList<>();
+        private int requests;
+        private int running;
+        private int peak;
+
+        Host(final int maxPerHost) {
+            this.permits = maxPerHost > 0 ? new Semaphore( maxPerHost, true ) : null;
+        }
+
+        synchronized void waited(final long waited) {
+            waitNanos.add( waited );
+        }
+
+        synchronized void started() {
+            requests++;
+            running++;
+            peak = Math.max( peak, running );
+        }
+
+        synchronized void finished(final long firstByte) {
+            running--;
+            if ( firstByte >= 0 ) {
+                firstByteNanos.add( firstByte );
+            }
+        }
+    }
+
+    private static final class Transfer {
+
+        private final Host host;
+        private final long start;
+        private final Permit permit;
+        private volatile long firstByteNanos = -1;
+
+        Transfer(final Host host, final long start, final Permit permit) {
+            this.host = host;
+            this.start = start;
+            this.permit = permit;
+        }
+    }
+}
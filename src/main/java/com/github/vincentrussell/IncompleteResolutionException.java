@@ -0,0 +1,14 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolverException;
+
+/**
+ * An artifact was not found in the repositories that were asked, but some of the configured repositories were
+ * left out of the request, so it may still exist and must not be remembered as missing.
+ */
+public class IncompleteResolutionException extends ArtifactResolverException {
+
+    public IncompleteResolutionException(final String message, final Exception cause) {
+        super( message, cause );
+    }
+}
@@ -0,0 +1,239 @@
+package com.github.vincentrussell;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the files in the version directories of some groupIds of a local repository, so that whether an
+ * artifact is present is answered from memory instead of from the file system.  The index is kept on disk and a
+ * refresh only lists the version directories whose last modified time changed since they were indexed.
+ * Groups can be refreshed while other threads read the index.
+ * <p>
+ * Every line of the file is either a version directory, "D", its path relative to the repository and its last
+ * modified time, or a file of the directory above it, "F", its name, size and last modified time, separated by
+ * tabs.
+ */
+public class LocalRepositoryIndex {
+
+    private static final String HEADER = "# extended-dependency-plugin local repository index";
+
+    /**
+     * Directories modified this close to the time they are listed are listed again on the next refresh, because
+     * a file added within the resolution of the file system clock doesn't change the last modified time.
+     */
+    private static final long RACY_MILLIS = 2000;
+
+    /**
+     * The size and last modified time of an indexed file.
+     */
+    public static final class FileState {
+
+        private final long size;
+        private final long lastModified;
+
+        FileState(final long size, final long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private static final class Directory {
+
+        private final long lastModified;
+        private final Map<String, FileState> files;
+
+        Directory(final long lastModified, final Map<String, FileState> files) {
+            this.lastModified = lastModified;
+            this.files = files;
+        }
+    }
+
+    private final File baseDir;
+    private final File indexFile;
+    private final Map<String, Directory> directories = new HashMap<>();
+    private final Set<String> indexedGroupIds = new HashSet<>();
+    private int listedCount;
+    private int reusedCount;
+
+    public LocalRepositoryIndex(final File baseDir, final File indexFile) {
+        this.baseDir = baseDir;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Read the index from disk.  A missing index or one written by another version is treated as empty.
+     */
+    public synchronized void load() throws IOException {
+        directories.clear();
+        if ( !indexFile.isFile() ) {
+            return;
+        }
+        try ( BufferedReader reader = Files.newBufferedReader( indexFile.toPath(), StandardCharsets.UTF_8 ) ) {
+            if ( !HEADER.equals( reader.readLine() ) ) {
+                return;
+            }
+            Map<String, FileState> files = null;
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                String[] tokens = line.split( "\t", -1 );
+                try {
+                    if ( tokens.length == 3 && "D".equals( tokens[0] ) ) {
+                        files = new HashMap<>();
+                        directories.put( tokens[1], new Directory( Long.parseLong( tokens[2] ), files ) );
+                    } else if ( tokens.length == 4 && "F".equals( tokens[0] ) && files != null ) {
+                        files.put( tokens[1], new FileState( Long.parseLong( tokens[2] ), Long.parseLong( tokens[3] ) ) );
+                    } else {
+                        throw new IOException( "Invalid line in " + indexFile + ": " + line );
+                    }
+                } catch ( NumberFormatException e ) {
+                    throw new IOException( "Invalid line in " + indexFile + ": " + line, e );
+                }
+            }
+        }
+    }
+
+    /**
+     * Bring the version directories of the groupIds up to date, listing only the directories that changed.
+     */
+    public synchronized void refresh(final Collection<String> groupIds) throws IOException {
+        for ( String groupId : groupIds ) {
+            if ( !indexedGroupIds.contains( groupId ) ) {
+                refreshGroup( groupId );
+                indexedGroupIds.add( groupId );
+            }
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories( directory.toPath() );
+        File tempFile = File.createTempFile( indexFile.getName(), ".tmp", directory );
+        try ( BufferedWriter writer = Files.newBufferedWriter( tempFile.toPath(), StandardCharsets.UTF_8 ) ) {
+            writer.write( HEADER );
+            writer.newLine();
+            for ( Map.Entry<String, Directory> entry : directories.entrySet() ) {
+                writer.write( "D\t" + entry.getKey() + "\t" + entry.getValue().lastModified );
+                writer.newLine();
+                for ( Map.Entry<String, FileState> file : entry.getValue().files.entrySet() ) {
+                    writer.write( "F\t" + file.getKey() + "\t" + file.getValue().size + "\t"
+                            + file.getValue().lastModified );
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move( tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    /**
+     * Whether the files of the groupId are in the index, in which case a file that {@link #get(String)} doesn't
+     * know about is not in the local repository.
+     */
+    public synchronized boolean isIndexed(final String groupId) {
+        return indexedGroupIds.contains( groupId );
+    }
+
+    /**
+     * The state of a file of an indexed groupId.
+     *
+     * @param path the path of the file relative to the local repository, separated by /
+     * @return the state or null if the file is not in the local repository
+     */
+    public synchronized FileState get(final String path) {
+        int slash = path.lastIndexOf( '/' );
+        Directory directory = slash > 0 ? directories.get( path.substring( 0, slash ) ) : null;
+        return directory != null ? directory.files.get( path.substring( slash + 1 ) ) : null;
+    }
+
+    public synchronized int getListedCount() {
+        return listedCount;
+    }
+
+    public synchronized int getReusedCount() {
+        return reusedCount;
+    }
+
+    public synchronized int getIndexedCount() {
+        return indexedGroupIds.size();
+    }
+
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    private void refreshGroup(final String groupId) throws IOException {
+        String groupPath = groupId.replace( '.', '/' );
+        Set<String> present = new HashSet<>();
+        Path groupDir = baseDir.toPath().resolve( groupPath );
+        if ( Files.isDirectory( groupDir ) ) {
+            for ( Path artifactDir : listDirectories( groupDir ) ) {
+                for ( Path versionDir : listDirectories( artifactDir ) ) {
+                    String path = groupPath + "/" + artifactDir.getFileName() + "/" + versionDir.getFileName();
+                    present.add( path );
+                    refreshDirectory( path, versionDir );
+                }
+            }
+        }
+        String prefix = groupPath + "/";
+        for ( Iterator<String> iterator = directories.keySet().iterator(); iterator.hasNext(); ) {
+            String path = iterator.next();
+            if ( path.startsWith( prefix ) && path.indexOf( '/', prefix.length() ) == path.lastIndexOf( '/' )
+                    && !present.contains( path ) ) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void refreshDirectory(final String path, final Path versionDir) throws IOException {
+        long lastModified = Files.getLastModifiedTime( versionDir ).toMillis();
+        Directory indexed = directories.get( path );
+        if ( indexed != null && indexed.lastModified == lastModified ) {
+            reusedCount++;
+            return;
+        }
+        long listedAt = System.currentTimeMillis();
+        Map<String, FileState> files = new HashMap<>();
+        try ( DirectoryStream<Path> stream = Files.newDirectoryStream( versionDir ) ) {
+            for ( Path file : stream ) {
+                BasicFileAttributes attributes = Files.readAttributes( file, BasicFileAttributes.class );
+                if ( attributes.isRegularFile() ) {
+                    files.put( file.getFileName().toString(),
+                            new FileState( attributes.size(), attributes.lastModifiedTime().toMillis() ) );
+                }
+            }
+        }
+        directories.put( path, new Directory( listedAt - lastModified < RACY_MILLIS ? -1 : lastModified, files ) );
+        listedCount++;
+    }
+
+    private static Collection<Path> listDirectories(final Path directory) throws IOException {
+        Collection<Path> children = new HashSet<>();
+        try ( DirectoryStream<Path> stream = Files.newDirectoryStream( directory, Files::isDirectory ) ) {
+            for ( Path child : stream ) {
+                children.add( child );
+            }
+        }
+        return children;
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.vincentrussell;
+
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the artifacts that could not be found in any of the remote repositories so that they are not
+ * requested again until the time to live expires.  The entries are stored in a properties file where the key is
+ * the artifact and the value is the time it was found to be missing.
+ */
+public class NegativeResolutionCache {
+
+    private final File file;
+    private final long ttlMillis;
+    private final ConcurrentMap<String, Long> missing = new ConcurrentHashMap<>();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    public NegativeResolutionCache(final File file, final long ttlMinutes) {
+        this.file = file;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis( ttlMinutes );
+    }
+
+    /**
+     * Read the entries from disk, dropping the ones that have expired.
+     */
+    public void load() throws IOException {
+        missing.putAll( read() );
+    }
+
+    public boolean isMissing(final String key) {
+        Long timestamp = missing.get( key );
+        return timestamp != null && !isExpired( timestamp );
+    }
+
+    public void markMissing(final String key) {
+        missing.put( key, System.currentTimeMillis() );
+        removed.remove( key );
+    }
+
+    public void markFound(final String key) {
+        if ( missing.remove( key ) != null ) {
+            removed.add( key );
+        }
+    }
+
+    public int size() {
+        return missing.size();
+    }
+
+    /**
+     * Write the entries to disk.  Entries written by other runs in the meantime are kept unless this run
+     * found the artifact.
+     */
+    public synchronized void save() throws IOException {
+        Map<String, Long> entries = read();
+        entries.putAll( missing );
+        entries.keySet().removeAll( removed );
+
+        Properties properties = new Properties();
+        for ( Map.Entry<String, Long> entry : entries.entrySet() ) {
+            properties.setProperty( entry.getKey(), String.valueOf( entry.getValue() ) );
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories( parent.toPath() );
+        File tempFile = File.createTempFile( file.getName(), ".tmp", parent );
+        try ( OutputStream outputStream = Files.newOutputStream( tempFile.toPath() ) ) {
+            properties.store( outputStream, "artifacts that could not be found" );
+        }
+        Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    private Map<String, Long> read() throws IOException {
+        Map<String, Long> entries = new ConcurrentHashMap<>();
+        if ( !file.isFile() ) {
+            return entries;
+        }
+        Properties properties = new Properties();
+        try ( InputStream inputStream = Files.newInputStream( file.toPath() ) ) {
+            properties.load( inputStream );
+        }
+        for ( String key : properties.stringPropertyNames() ) {
+            try {
+                long timestamp = Long.parseLong( properties.getProperty( key ) );
+                if ( !isExpired( timestamp ) ) {
+                    entries.put( key, timestamp );
+                }
+            } catch ( NumberFormatException e ) {
+                // ignore the corrupt entry, the artifact will be requested again
+            }
+        }
+        return entries;
+    }
+
+    private boolean isExpired(final long timestamp) {
+        return System.currentTimeMillis() - timestamp > ttlMillis;
+    }
+
+    /**
+     * Whether the failure means that the artifact does not exist in any of the repositories, as opposed to a
+     * transfer problem that may go away on the next run.  An {@link IncompleteResolutionException} is not, because
+     * some of the repositories were not asked.
+     */
+    public static boolean isNotFound(final Throwable throwable) {
+        for ( Throwable cause = throwable; cause != null; cause = cause.getCause() ) {
+            if ( cause instanceof IncompleteResolutionException ) {
+                return false;
+            }
+            if ( cause instanceof ArtifactNotFoundException ) {
+                return true;
+            }
+            if ( cause instanceof ArtifactResolutionException ) {
+                boolean notFound = false;
+                for ( ArtifactResult result : ( (ArtifactResolutionException) cause ).getResults() ) {
+                    for ( Exception exception : result.getExceptions() ) {
+                        if ( !( exception instanceof ArtifactNotFoundException ) ) {
+                            return false;
+                        }
+                        notFound = true;
+                    }
+                }
+                return notFound;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending requests to a remote repository after a number of transient failures in a row, so that a
+ * repository that is down costs a timeout once instead of once per artifact.  Once the cool down has passed a
+ * single request is let through; the repository is used again if it succeeds and skipped for another cool down
+ * if it fails.
+ */
+public class RepositoryCircuitBreaker {
+
+    private final int threshold;
+    private final long coolDownNanos;
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * @param threshold      the number of transient failures in a row that open the circuit, or 0 to never open it
+     * @param coolDownMillis how long an open circuit stays open before a request is let through
+     */
+    public RepositoryCircuitBreaker(final int threshold, final long coolDownMillis) {
+        this.threshold = threshold;
+        this.coolDownNanos = TimeUnit.MILLISECONDS.toNanos( coolDownMillis );
+    }
+
+    /**
+     * The repositories that may be sent a request now, in their order.
+     */
+    public List<ArtifactRepository> allowed(final List<ArtifactRepository> repositories) {
+        if ( threshold <= 0 ) {
+            return repositories;
+        }
+        List<ArtifactRepository> allowed = new ArrayList<>( repositories.size() );
+        for ( ArtifactRepository repository : repositories ) {
+            if ( getCircuit( repository.getId() ).allowRequest( coolDownNanos ) ) {
+                allowed.add( repository );
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Record a request to a repository that got an answer, including a missing artifact.
+     */
+    public void recordSuccess(final String repositoryId) {
+        getCircuit( repositoryId ).success();
+    }
+
+    /**
+     * Record a failed request to a repository.  Only transient failures count towards opening the circuit.
+     */
+    public void recordFailure(final String repositoryId, final Throwable throwable) {
+        if ( RetryPolicy.isTransient( throwable ) ) {
+            getCircuit( repositoryId ).failure( threshold );
+        } else {
+            getCircuit( repositoryId ).success();
+        }
+    }
+
+    /**
+     * Record the failure of a request that was sent to several repositories against each of the repositories that
+     * failed, as far as the failure tells them apart, and against the fallback otherwise.
+     */
+    public void recordTransferFailure(final Throwable throwable, final String fallbackRepositoryId) {
+        Set<String> failed = new LinkedHashSet<>();
+        for ( Throwable cause = throwable; cause != null; cause = cause.getCause() ) {
+            if ( cause instanceof ArtifactResolutionException ) {
+                for ( ArtifactResult result : ( (ArtifactResolutionException) cause ).getResults() ) {
+                    for ( Exception exception : result.getExceptions() ) {
+                        if ( exception instanceof ArtifactTransferException
+                                && ( (ArtifactTransferException) exception ).getRepository() != null ) {
+                            recordFailure( ( (ArtifactTransferException) exception ).getRepository().getId(),
+                                    exception );
+                            failed.add( ( (ArtifactTransferException) exception ).getRepository().getId() );
+                        }
+                    }
+                }
+                break;
+            }
+        }
+        if ( failed.isEmpty() && fallbackRepositoryId != null ) {
+            recordFailure( fallbackRepositoryId, throwable );
+        }
+    }
+
+    /**
+     * How many requests every repository was not sent because its circuit was open.
+     */
+    public Map<String, Integer> getSkippedRequests() {
+        Map<String, Integer> skipped = new TreeMap<>();
+        for ( Map.Entry<String, Circuit> circuit : circuits.entrySet() ) {
+            int count = circuit.getValue().getSkipped();
+            if ( count > 0 ) {
+                skipped.put( circuit.getKey(), count );
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * The number of times the circuit of any repository opened.
+     */
+    public int getOpenedCount() {
+        int opened = 0;
+        for ( Circuit circuit : circuits.values() ) {
+            opened += circuit.getOpened();
+        }
+        return opened;
+    }
+
+    private Circuit getCircuit(final String repositoryId) {
+        return circuits.computeIfAbsent( repositoryId, id -> new Circuit() );
+    }
+
+    private static final class Circuit {
+
+        private int failures;
+        private long openedAt = -1;
+        private int skipped;
+        private int opened;
+
+        /**
+         * A request to an open circuit is let through once the cool down has passed, which starts the cool down
+         * again for the requests after it.
+         */
+        synchronized boolean allowRequest(final long coolDownNanos) {
+            if ( openedAt < 0 ) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if ( now - openedAt >= coolDownNanos ) {
+                openedAt = now;
+                return true;
+            }
+            skipped++;
+            return false;
+        }
+
+        synchronized void success() {
+            failures = 0;
+            openedAt = -1;
+        }
+
+        synchronized void failure(final int threshold) {
+            failures++;
+            if ( openedAt >= 0 ) {
+                openedAt = System.nanoTime();
+            } else if ( threshold > 0 && failures >= threshold ) {
+                openedAt = System.nanoTime();
+                opened++;
+            }
+        }
+
+        synchronized int getSkipped() {
+            return skipped;
+        }
+
+        synchronized int getOpened() {
+            return opened;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.vincentrussell;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills a directory with the resolved artifacts in the maven2 repository layout so that it can be used as an
+ * offline mirror.  Every file is linked or copied by a bounded pool of writers together with its .sha1 and .md5
+ * checksum files, and the maven-metadata.xml of every groupId:artifactId is written once when the mirror is
+ * closed, merged with the versions that are already in the directory.
+ */
+public class RepositoryMirror {
+
+    private static final List<String> CHECKSUM_ALGORITHMS = Arrays.asList( "SHA-1", "MD5" );
+
+    private final File baseDir;
+    private final ArtifactExporter exporter;
+    private final ExecutorService writers;
+    private final List<Future<?>> writes = new ArrayList<>();
+    private final ConcurrentMap<String, Set<String>> versions = new ConcurrentHashMap<>();
+    private final Set<String> poms = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger fileCount = new AtomicInteger();
+
+    public RepositoryMirror(final File baseDir, final int threads) {
+        this.baseDir = baseDir;
+        this.exporter = new ArtifactExporter( baseDir, ArtifactExporter.Layout.REPOSITORY );
+        this.writers = Executors.newFixedThreadPool( Math.max( 1, threads ),
+                new ThreadFactoryBuilder().setNameFormat( "get-mirror-%d" ).setDaemon( true ).build() );
+    }
+
+    /**
+     * Queue a file of an artifact to be written to the mirror.
+     */
+    public void add(final ArtifactCoordinate coordinate, final File file) {
+        versions.computeIfAbsent( coordinate.getGroupId() + ":" + coordinate.getArtifactId(),
+                key -> ConcurrentHashMap.newKeySet() ).add( coordinate.getVersion() );
+        Future<?> write = writers.submit( () -> {
+            File target = exporter.export( coordinate, file );
+            writeChecksums( target );
+            fileCount.incrementAndGet();
+            return null;
+        } );
+        synchronized ( writes ) {
+            writes.add( write );
+        }
+    }
+
+    /**
+     * Whether the pom of groupId:artifactId:version still has to be added, which is true only for the first call.
+     */
+    public boolean claimPom(final String groupId, final String artifactId, final String version) {
+        return poms.add( groupId + ":" + artifactId + ":" + version );
+    }
+
+    /**
+     * Wait for the queued files and write the maven-metadata.xml files.
+     */
+    public void close() throws IOException {
+        try {
+            List<Future<?>> pending;
+            synchronized ( writes ) {
+                pending = new ArrayList<>( writes );
+            }
+            for ( Future<?> write : pending ) {
+                write.get();
+            }
+        } catch ( ExecutionException e ) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException( e.getCause().getMessage(), e.getCause() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while writing to " + baseDir, e );
+        } finally {
+            writers.shutdownNow();
+        }
+        for ( Map.Entry<String, Set<String>> artifact : versions.entrySet() ) {
+            String[] tokens = artifact.getKey().split( ":" );
+            writeMetadata( tokens[0], tokens[1], artifact.getValue() );
+        }
+    }
+
+    /**
+     * Stop writing, leaving the files that were written so far.
+     */
+    public void abort() {
+        writers.shutdownNow();
+    }
+
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    public int getFileCount() {
+        return fileCount.get();
+    }
+
+    public int getMetadataCount() {
+        return versions.size();
+    }
+
+    private void writeMetadata(final String groupId, final String artifactId, final Set<String> newVersions)
+            throws IOException {
+        File directory = new File( baseDir, groupId.replace( '.', '/' ) + "/" + artifactId );
+        File file = new File( directory, "maven-metadata.xml" );
+        Metadata metadata = new Metadata();
+        if ( file.isFile() ) {
+            try ( Reader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 ) ) {
+                metadata = new MetadataXpp3Reader().read( reader, false );
+            } catch ( XmlPullParserException e ) {
+                throw new IOException( "Couldn't read " + file + ": " + e.getMessage(), e );
+            }
+        }
+        metadata.setGroupId( groupId );
+        metadata.setArtifactId( artifactId );
+        Versioning versioning = metadata.getVersioning() != null ? metadata.getVersioning() : new Versioning();
+        List<String> allVersions = new ArrayList<>( versioning.getVersions() );
+        for ( String version : newVersions ) {
+            if ( !allVersions.contains( version ) ) {
+                allVersions.add( version );
+            }
+        }
+        allVersions.sort( Comparator.comparing( ComparableVersion::new ) );
+        versioning.setVersions( allVersions );
+        versioning.setLatest( allVersions.get( allVersions.size() - 1 ) );
+        for ( String version : allVersions ) {
+            if ( !ArtifactUtils.isSnapshot( version ) ) {
+                versioning.setRelease( version );
+            }
+        }
+        versioning.updateTimestamp();
+        metadata.setVersioning( versioning );
+
+        Files.createDirectories( directory.toPath() );
+        File tempFile = File.createTempFile( file.getName(), ".tmp", directory );
+        try ( Writer writer = Files.newBufferedWriter( tempFile.toPath(), StandardCharsets.UTF_8 ) ) {
+            new MetadataXpp3Writer().write( writer, metadata );
+        }
+        Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        writeChecksums( file );
+    }
+
+    private static void writeChecksums(final File file) throws IOException {
+        Map<String, String> digests = Checksums.hash( file, CHECKSUM_ALGORITHMS );
+        Files.write( new File( file.getPath() + ".sha1" ).toPath(),
+                digests.get( "SHA-1" ).getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( new File( file.getPath() + ".md5" ).toPath(),
+                digests.get( "MD5" ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
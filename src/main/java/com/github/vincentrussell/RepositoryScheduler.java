@@ -0,0 +1,73 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the latency and the hit rate of every remote repository during a run and orders the
+ * repositories so that the one with the lowest expected cost of finding an artifact is tried first.
+ */
+public class RepositoryScheduler {
+
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Order the repositories by the expected time it takes to find an artifact in them.  Repositories that have
+     * not been used yet keep their configured order ahead of the others so that they get measured.
+     */
+    public List<ArtifactRepository> order(final List<ArtifactRepository> repositories) {
+        final Map<ArtifactRepository, Double> costs = new IdentityHashMap<>();
+        for ( ArtifactRepository repository : repositories ) {
+            costs.put( repository, getStatistics( repository.getId() ).expectedCost() );
+        }
+        List<ArtifactRepository> ordered = new ArrayList<>( repositories );
+        Collections.sort( ordered, Comparator.comparing( costs::get ) );
+        return ordered;
+    }
+
+    /**
+     * Record an attempt to get an artifact from a repository.
+     */
+    public void record(final String repositoryId, final long elapsedNanos, final boolean hit) {
+        getStatistics( repositoryId ).record( elapsedNanos, hit );
+    }
+
+    private Statistics getStatistics(final String repositoryId) {
+        return statistics.computeIfAbsent( repositoryId, id -> new Statistics() );
+    }
+
+    private static final class Statistics {
+
+        private long attempts;
+        private long hits;
+        private long totalNanos;
+
+        synchronized void record(final long elapsedNanos, final boolean hit) {
+            attempts++;
+            totalNanos += elapsedNanos;
+            if ( hit ) {
+                hits++;
+            }
+        }
+
+        /**
+         * The mean latency divided by the smoothed hit rate, so a fast repository that rarely has the artifact
+         * is tried after a slower one that usually has it.
+         */
+        synchronized double expectedCost() {
+            if ( attempts == 0 ) {
+                return 0;
+            }
+            double hitRate = ( hits + 1d ) / ( attempts + 2d );
+            return ( (double) totalNanos / attempts ) / hitRate;
+        }
+    }
+}
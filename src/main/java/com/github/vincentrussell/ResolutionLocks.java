@@ -0,0 +1,126 @@
+package com.github.vincentrussell;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks on artifacts that are shared by every process that uses the same local repository, so that only one of
+ * them downloads an artifact at a time and the others pick up the downloaded file.  A lock is an exclusive lock
+ * on a file in the lock directory, held together with a lock shared by the whole JVM because file locks are held
+ * on behalf of the JVM and can't be taken twice by it, for instance by two parallel builds.  A JVM lock is dropped
+ * when no thread holds or waits for it, so a long running JVM doesn't keep one for every artifact it ever resolved.
+ * The lock files are left in place; removing them could let two processes lock different files for the same artifact.
+ */
+public class ResolutionLocks {
+
+    private static final ConcurrentMap<String, ProcessLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final File directory;
+
+    public ResolutionLocks(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Wait until the artifact is not locked by this or any other process and lock it.
+     */
+    public Lock acquire(final String key) throws IOException {
+        File lockFile = new File( directory, getFileName( key ) ).getAbsoluteFile();
+        String path = lockFile.getPath();
+        ProcessLock processLock = PROCESS_LOCKS.compute( path, ( lockPath, existing ) -> {
+            ProcessLock lock = existing != null ? existing : new ProcessLock();
+            lock.users++;
+            return lock;
+        } );
+        FileChannel channel = null;
+        try {
+            processLock.lock.lock();
+            try {
+                Files.createDirectories( directory.toPath() );
+                channel = FileChannel.open( lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+                return new Lock( path, processLock, channel, channel.lock() );
+            } catch ( IOException | RuntimeException e ) {
+                if ( channel != null ) {
+                    channel.close();
+                }
+                processLock.lock.unlock();
+                throw e;
+            }
+        } catch ( IOException | RuntimeException e ) {
+            release( path );
+            throw e;
+        }
+    }
+
+    /**
+     * Drop a user of the JVM lock of a lock file, removing the lock once it has none.
+     */
+    private static void release(final String path) {
+        PROCESS_LOCKS.computeIfPresent( path, ( key, lock ) -> --lock.users == 0 ? null : lock );
+    }
+
+    static String getFileName(final String key) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : MessageDigest.getInstance( "SHA-1" ).digest( key.getBytes( StandardCharsets.UTF_8 ) ) ) {
+                hex.append( String.format( "%02x", b ) );
+            }
+            return hex + ".lock";
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * A held lock, released by {@link #close()}.
+     */
+    public static final class Lock implements Closeable {
+
+        private final String path;
+        private final ProcessLock processLock;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        Lock(final String path, final ProcessLock processLock, final FileChannel channel, final FileLock fileLock) {
+            this.path = path;
+            this.processLock = processLock;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileLock.release();
+            } finally {
+                try {
+                    channel.close();
+                } finally {
+                    processLock.lock.unlock();
+                    release( path );
+                }
+            }
+        }
+    }
+
+    /**
+     * The lock of a lock file within the JVM and the number of threads that hold or wait for it, which is only
+     * changed while the map entry is being computed.
+     */
+    private static final class ProcessLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+}
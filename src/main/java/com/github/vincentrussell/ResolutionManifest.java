@@ -0,0 +1,185 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.apache.maven.shared.transfer.artifact.DefaultArtifactCoordinate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The resolved dependency graph of one root artifact for one set of repositories.  Every line after the header
+ * is a node of the graph: status, groupId:artifactId:extension:classifier:version, sha1, size, last modified
+ * time and the id of the repository the file came from, separated by tabs.
+ */
+public class ResolutionManifest {
+
+    private static final String HEADER = "# extended-dependency-plugin manifest";
+    private static final String KEY_PREFIX = "key=";
+
+    /**
+     * The outcome of the resolution of a node.
+     */
+    public enum Status {
+        RESOLVED, MISSING, FAILED
+    }
+
+    /**
+     * A node of the graph.
+     */
+    public static final class Entry {
+
+        private final String key;
+        private final Status status;
+        private final String sha1;
+        private final long size;
+        private final long lastModified;
+        private final String repositoryId;
+
+        public Entry(final String key, final Status status, final String sha1, final long size,
+                     final long lastModified, final String repositoryId) {
+            this.key = key;
+            this.status = status;
+            this.sha1 = sha1 == null ? "" : sha1;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.repositoryId = repositoryId == null ? "" : repositoryId;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getSha1() {
+            return sha1;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+
+        /**
+         * Whether the file is the one that was recorded, judging by its size and last modified time.
+         */
+        public boolean isUnchanged(final File file) {
+            return file.isFile() && isUnchanged( file.length(), file.lastModified() );
+        }
+
+        public boolean isUnchanged(final long fileSize, final long fileLastModified) {
+            return status == Status.RESOLVED && fileSize == size && fileLastModified == lastModified;
+        }
+
+        public ArtifactCoordinate toCoordinate() {
+            String[] tokens = key.split( ":", -1 );
+            DefaultArtifactCoordinate coordinate = new DefaultArtifactCoordinate();
+            coordinate.setGroupId( tokens[0] );
+            coordinate.setArtifactId( tokens[1] );
+            coordinate.setExtension( tokens[2] );
+            coordinate.setClassifier( tokens[3].isEmpty() ? null : tokens[3] );
+            coordinate.setVersion( tokens[4] );
+            return coordinate;
+        }
+    }
+
+    private final String key;
+    private final List<Entry> entries;
+
+    public ResolutionManifest(final String key, final List<Entry> entries) {
+        this.key = key;
+        this.entries = Collections.unmodifiableList( new ArrayList<>( entries ) );
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * The name of the file that holds the manifest with the key.
+     */
+    public static String getFileName(final String key) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : MessageDigest.getInstance( "SHA-1" ).digest( key.getBytes( StandardCharsets.UTF_8 ) ) ) {
+                hex.append( String.format( "%02x", b ) );
+            }
+            return hex + ".manifest";
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Read the manifest with the key from the directory.
+     *
+     * @return the manifest or null if there is none for the key
+     */
+    public static ResolutionManifest read(final File directory, final String key) throws IOException {
+        File file = new File( directory, getFileName( key ) );
+        if ( !file.isFile() ) {
+            return null;
+        }
+        List<Entry> entries = new ArrayList<>();
+        try ( BufferedReader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 ) ) {
+            if ( !HEADER.equals( reader.readLine() ) || !( KEY_PREFIX + key ).equals( reader.readLine() ) ) {
+                return null;
+            }
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                String[] tokens = line.split( "\t", -1 );
+                if ( tokens.length != 6 ) {
+                    throw new IOException( "Invalid line in " + file + ": " + line );
+                }
+                try {
+                    entries.add( new Entry( tokens[1], Status.valueOf( tokens[0] ), tokens[2],
+                            Long.parseLong( tokens[3] ), Long.parseLong( tokens[4] ), tokens[5] ) );
+                } catch ( IllegalArgumentException e ) {
+                    throw new IOException( "Invalid line in " + file + ": " + line, e );
+                }
+            }
+        }
+        return new ResolutionManifest( key, entries );
+    }
+
+    public void write(final File directory) throws IOException {
+        Files.createDirectories( directory.toPath() );
+        File file = new File( directory, getFileName( key ) );
+        File tempFile = File.createTempFile( file.getName(), ".tmp", directory );
+        try ( BufferedWriter writer = Files.newBufferedWriter( tempFile.toPath(), StandardCharsets.UTF_8 ) ) {
+            writer.write( HEADER );
+            writer.newLine();
+            writer.write( KEY_PREFIX + key );
+            writer.newLine();
+            for ( Entry entry : entries ) {
+                writer.write( entry.getStatus() + "\t" + entry.getKey() + "\t" + entry.getSha1() + "\t"
+                        + entry.getSize() + "\t" + entry.getLastModified() + "\t" + entry.getRepositoryId() );
+                writer.newLine();
+            }
+        }
+        Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+}
@@ -0,0 +1,332 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing and throughput figures of a run: the wall time of every phase, the latency and size of every artifact,
+ * the latency of the requests to every remote repository and the concurrency of the transfers to every repository
+ * host.
+ */
+public class ResolutionMetrics {
+
+    /**
+     * Where an artifact came from.
+     */
+    public enum Source {
+        REMOTE, LOCAL, SKIPPED, FAILED
+    }
+
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final List<ArtifactSample> artifacts = new ArrayList<>();
+    private final Map<String, List<Long>> repositoryNanos = new TreeMap<>();
+    private final Map<String, Integer> repositoryHits = new TreeMap<>();
+    private final Map<String, Long> counters = new TreeMap<>();
+    private final List<VerificationSample> verifications = new ArrayList<>();
+    private final Map<String, HostSample> hosts = new TreeMap<>();
+    private final long start = System.nanoTime();
+
+    public synchronized void recordPhase(final String phase, final long elapsedNanos) {
+        phaseNanos.merge( phase, elapsedNanos, Long::sum );
+    }
+
+    public synchronized void recordArtifact(final String key, final Source source, final String repositoryId,
+                                            final long elapsedNanos, final long bytes) {
+        artifacts.add( new ArtifactSample( key, source, repositoryId, elapsedNanos, bytes ) );
+    }
+
+    public synchronized void recordRepositoryRequest(final String repositoryId, final long elapsedNanos,
+                                                     final boolean hit) {
+        repositoryNanos.computeIfAbsent( repositoryId, id -> new ArrayList<>() ).add( elapsedNanos );
+        repositoryHits.merge( repositoryId, hit ? 1 : 0, Integer::sum );
+    }
+
+    /**
+     * Record the checksum verification of a file, its outcome and how long it took.
+     */
+    public synchronized void recordVerification(final String key, final String outcome, final long elapsedNanos,
+                                                final long bytes) {
+        verifications.add( new VerificationSample( key, outcome, elapsedNanos, bytes ) );
+    }
+
+    /**
+     * Record the transfers to a repository host.
+     *
+     * @param peakConcurrency the most transfers that ran at the same time
+     * @param waitNanos       how long every transfer waited for its turn
+     * @param firstByteNanos  how long every transfer that received a body took to its first byte
+     */
+    public synchronized void recordHostTransfers(final String host, final int requests, final int peakConcurrency,
+                                                 final List<Long> waitNanos, final List<Long> firstByteNanos) {
+        hosts.put( host, new HostSample( requests, peakConcurrency, sorted( waitNanos ), sorted( firstByteNanos ) ) );
+    }
+
+    /**
+     * Add to a named counter that is reported with the summary.
+     */
+    public synchronized void increment(final String counter, final long amount) {
+        counters.merge( counter, amount, Long::sum );
+    }
+
+    public synchronized void logSummary(final Log log) {
+        long totalNanos = System.nanoTime() - start;
+        log.info( "Run summary, total " + millis( totalNanos ) + " ms" );
+        for ( Map.Entry<String, Long> phase : phaseNanos.entrySet() ) {
+            log.info( "  " + phase.getKey() + ": " + millis( phase.getValue() ) + " ms" );
+        }
+        Map<Source, Integer> sourceCounts = getSourceCounts();
+        long bytes = getRemoteBytes();
+        log.info( "  artifacts: " + sourceCounts.get( Source.REMOTE ) + " downloaded (" + bytes + " bytes), "
+                + sourceCounts.get( Source.LOCAL ) + " from the local repository, "
+                + sourceCounts.get( Source.SKIPPED ) + " skipped, " + sourceCounts.get( Source.FAILED ) + " failed" );
+        if ( totalNanos > 0 && !artifacts.isEmpty() ) {
+            double seconds = totalNanos / 1e9;
+            log.info( String.format( "  throughput: %.1f artifacts/s, %.1f KB/s", artifacts.size() / seconds,
+                    bytes / 1024d / seconds ) );
+        }
+        for ( Map.Entry<String, Long> counter : counters.entrySet() ) {
+            log.info( "  " + counter.getKey() + ": " + counter.getValue() );
+        }
+        if ( !verifications.isEmpty() ) {
+            List<Long> nanos = new ArrayList<>( verifications.size() );
+            long verifiedBytes = 0;
+            long verifiedNanos = 0;
+            Map<String, Integer> outcomes = new TreeMap<>();
+            for ( VerificationSample sample : verifications ) {
+                nanos.add( sample.elapsedNanos );
+                verifiedBytes += sample.bytes;
+                verifiedNanos += sample.elapsedNanos;
+                outcomes.merge( sample.outcome.toLowerCase(), 1, Integer::sum );
+            }
+            List<Long> sorted = sorted( nanos );
+            log.info( String.format( "  checksum verification: %d files %s, p50 %d ms, p95 %d ms, max %d ms, %.1f KB/s "
+                            + "per thread", verifications.size(), outcomes, millis( percentile( sorted, 50 ) ),
+                    millis( percentile( sorted, 95 ) ), millis( percentile( sorted, 100 ) ),
+                    verifiedNanos > 0 ? verifiedBytes / 1024d / ( verifiedNanos / 1e9 ) : 0d ) );
+        }
+        for ( Map.Entry<String, List<Long>> repository : repositoryNanos.entrySet() ) {
+            List<Long> sorted = sorted( repository.getValue() );
+            log.info( "  repository " + repository.getKey() + ": " + sorted.size() + " requests, "
+                    + repositoryHits.get( repository.getKey() ) + " hits, p50 " + millis( percentile( sorted, 50 ) )
+                    + " ms, p95 " + millis( percentile( sorted, 95 ) ) + " ms, p99 "
+                    + millis( percentile( sorted, 99 ) ) + " ms" );
+        }
+        for ( Map.Entry<String, HostSample> host : hosts.entrySet() ) {
+            HostSample sample = host.getValue();
+            log.info( String.format( "  transfers %s: %d requests, at most %d at a time, wait p95 %d ms, "
+                            + "first byte p50 %d ms, p95 %d ms", host.getKey(), sample.requests,
+                    sample.peakConcurrency, millis( percentile( sample.waitNanos, 95 ) ),
+                    millis( percentile( sample.firstByteNanos, 50 ) ),
+                    millis( percentile( sample.firstByteNanos, 95 ) ) ) );
+        }
+    }
+
+    public synchronized void writeJson(final File file) throws IOException {
+        Files.createDirectories( file.getAbsoluteFile().getParentFile().toPath() );
+        try ( Writer writer = Files.newBufferedWriter( file.toPath(), StandardCharsets.UTF_8 ) ) {
+            writer.write( "{\n  \"totalMillis\": " + millis( System.nanoTime() - start ) + ",\n" );
+
+            writer.write( "  \"phases\": {" );
+            for ( Iterator<Map.Entry<String, Long>> iterator = phaseNanos.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Long> phase = iterator.next();
+                writer.write( "\n    " + quote( phase.getKey() ) + ": " + millis( phase.getValue() )
+                        + ( iterator.hasNext() ? "," : "\n  " ) );
+            }
+            writer.write( "},\n" );
+
+            Map<Source, Integer> sourceCounts = getSourceCounts();
+            writer.write( "  \"artifacts\": {\n" );
+            for ( Source source : Source.values() ) {
+                writer.write( "    " + quote( source.name().toLowerCase() ) + ": " + sourceCounts.get( source ) + ",\n" );
+            }
+            writer.write( "    \"bytes\": " + getRemoteBytes() + "\n  },\n" );
+
+            writer.write( "  \"counters\": {" );
+            for ( Iterator<Map.Entry<String, Long>> iterator = counters.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Long> counter = iterator.next();
+                writer.write( "\n    " + quote( counter.getKey() ) + ": " + counter.getValue()
+                        + ( iterator.hasNext() ? "," : "\n  " ) );
+            }
+            writer.write( "},\n" );
+
+            writer.write( "  \"repositories\": {" );
+            for ( Iterator<Map.Entry<String, List<Long>>> iterator = repositoryNanos.entrySet().iterator();
+                  iterator.hasNext(); ) {
+                Map.Entry<String, List<Long>> repository = iterator.next();
+                List<Long> sorted = sorted( repository.getValue() );
+                writer.write( "\n    " + quote( repository.getKey() ) + ": {\"requests\": " + sorted.size()
+                        + ", \"hits\": " + repositoryHits.get( repository.getKey() )
+                        + ", \"p50Millis\": " + millis( percentile( sorted, 50 ) )
+                        + ", \"p95Millis\": " + millis( percentile( sorted, 95 ) )
+                        + ", \"p99Millis\": " + millis( percentile( sorted, 99 ) ) + "}"
+                        + ( iterator.hasNext() ? "," : "\n  " ) );
+            }
+            writer.write( "},\n" );
+
+            writer.write( "  \"hosts\": {" );
+            for ( Iterator<Map.Entry<String, HostSample>> iterator = hosts.entrySet().iterator();
+                  iterator.hasNext(); ) {
+                Map.Entry<String, HostSample> host = iterator.next();
+                HostSample sample = host.getValue();
+                writer.write( "\n    " + quote( host.getKey() ) + ": {\"requests\": " + sample.requests
+                        + ", \"peakConcurrency\": " + sample.peakConcurrency
+                        + ", \"waitP95Millis\": " + millis( percentile( sample.waitNanos, 95 ) )
+                        + ", \"firstByteP50Millis\": " + millis( percentile( sample.firstByteNanos, 50 ) )
+                        + ", \"firstByteP95Millis\": " + millis( percentile( sample.firstByteNanos, 95 ) ) + "}"
+                        + ( iterator.hasNext() ? "," : "\n  " ) );
+            }
+            writer.write( "},\n" );
+
+            writer.write( "  \"artifactLatencies\": [" );
+            for ( Iterator<ArtifactSample> iterator = artifacts.iterator(); iterator.hasNext(); ) {
+                ArtifactSample sample = iterator.next();
+                writer.write( "\n    {\"artifact\": " + quote( sample.key ) + ", \"source\": "
+                        + quote( sample.source.name().toLowerCase() ) + ", \"repository\": "
+                        + ( sample.repositoryId == null ? "null" : quote( sample.repositoryId ) )
+                        + ", \"millis\": " + millis( sample.elapsedNanos ) + ", \"bytes\": " + sample.bytes + "}"
+                        + ( iterator.hasNext() ? "," : "\n  " ) );
+            }
+            writer.write( "],\n" );
+
+            writer.write( "  \"verifications\": [" );
+            for ( Iterator<VerificationSample> iterator = verifications.iterator(); iterator.hasNext(); ) {
+                VerificationSample sample = iterator.next();
+                writer.write( "\n    {\"artifact\": " + quote( sample.key ) + ", \"outcome\": "
+                        + quote( sample.outcome.toLowerCase() ) + ", \"millis\": " + millis( sample.elapsedNanos )
+                        + ", \"bytes\": " + sample.bytes + "}" + ( iterator.hasNext() ? "," : "\n  " ) );
+            }
+            writer.write( "]\n}\n" );
+        }
+    }
+
+    private Map<Source, Integer> getSourceCounts() {
+        Map<Source, Integer> counts = new LinkedHashMap<>();
+        for ( Source source : Source.values() ) {
+            counts.put( source, 0 );
+        }
+        for ( ArtifactSample sample : artifacts ) {
+            counts.merge( sample.source, 1, Integer::sum );
+        }
+        return counts;
+    }
+
+    private long getRemoteBytes() {
+        long bytes = 0;
+        for ( ArtifactSample sample : artifacts ) {
+            if ( sample.source == Source.REMOTE ) {
+                bytes += sample.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    private static List<Long> sorted(final List<Long> values) {
+        List<Long> sorted = new ArrayList<>( values );
+        Collections.sort( sorted );
+        return sorted;
+    }
+
+    /**
+     * The nearest rank percentile of sorted values.
+     */
+    static long percentile(final List<Long> sorted, final int percentile) {
+        if ( sorted.isEmpty() ) {
+            return 0;
+        }
+        int rank = (int) Math.ceil( percentile / 100d * sorted.size() );
+        return sorted.get( Math.max( 0, rank - 1 ) );
+    }
+
+    private static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis( nanos );
+    }
+
+    private static String quote(final String value) {
+        StringBuilder quoted = new StringBuilder( "\"" );
+        for ( char c : value.toCharArray() ) {
+            switch ( c ) {
+                case '"':
+                    quoted.append( "\\\"" );
+                    break;
+                case '\\':
+                    quoted.append( "\\\\" );
+                    break;
+                case '\n':
+                    quoted.append( "\\n" );
+                    break;
+                case '\t':
+                    quoted.append( "\\t" );
+                    break;
+                default:
+                    if ( c < 0x20 ) {
+                        quoted.append( String.format( "\\u%04x", (int) c ) );
+                    } else {
+                        quoted.append( c );
+                    }
+            }
+        }
+        return quoted.append( '"' ).toString();
+    }
+
+    private static final class ArtifactSample {
+
+        private final String key;
+        private final Source source;
+        private final String repositoryId;
+        private final long elapsedNanos;
+        private final long bytes;
+
+        ArtifactSample(final String key, final Source source, final String repositoryId, final long elapsedNanos,
+                       final long bytes) {
+            this.key = key;
+            this.source = source;
+            this.repositoryId = repositoryId;
+            this.elapsedNanos = elapsedNanos;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class HostSample {
+
+        private final int requests;
+        private final int peakConcurrency;
+        private final List<Long> waitNanos;
+        private final List<Long> firstByteNanos;
+
+        HostSample(final int requests, final int peakConcurrency, final List<Long> waitNanos,
+                   final List<Long> firstByteNanos) {
+            this.requests = requests;
+            this.peakConcurrency = peakConcurrency;
+            this.waitNanos = waitNanos;
+            this.firstByteNanos = firstByteNanos;
+        }
+    }
+
+    private static final class VerificationSample {
+
+        private final String key;
+        private final String outcome;
+        private final long elapsedNanos;
+        private final long bytes;
+
+        VerificationSample(final String key, final String outcome, final long elapsedNanos, final long bytes) {
+            this.key = key;
+            this.outcome = outcome;
+            this.elapsedNanos = elapsedNanos;
+            this.bytes = bytes;
+        }
+    }
+}
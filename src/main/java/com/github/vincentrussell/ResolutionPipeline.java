@@ -0,0 +1,114 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hands the nodes of the dependency graphs to the resolution stage while the graphs are still being walked.  At
+ * most {@code capacity} nodes wait for or are being resolved at a time and offering one more blocks the walk until
+ * one of them is done, so the memory that the run holds doesn't grow with the size of the graphs.  A node that
+ * several graphs reach is resolved once; only its key is kept to tell.
+ *
+ * @param <T> the result of the stage
+ */
+public class ResolutionPipeline<T> {
+
+    private final int capacity;
+    private final Semaphore slots;
+    private final Function<ArtifactCoordinate, CompletableFuture<T>> stage;
+    private final Set<String> offeredKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    /**
+     * @param capacity the number of nodes that may wait for or be in the stage at a time
+     * @param stage    starts the resolution of a node and returns its completion
+     */
+    public ResolutionPipeline(final int capacity, final Function<ArtifactCoordinate, CompletableFuture<T>> stage) {
+        this.capacity = Math.max( 1, capacity );
+        this.slots = new Semaphore( this.capacity );
+        this.stage = stage;
+    }
+
+    /**
+     * Pass a node of a graph to the stage unless a node with the same key was passed before, waiting for a free
+     * slot first.
+     *
+     * @return the completion of the node in the stage, or null if the node was passed before
+     */
+    public CompletableFuture<T> offer(final String key, final ArtifactCoordinate coordinate)
+            throws InterruptedException {
+        nodeCount.incrementAndGet();
+        if ( !offeredKeys.add( key ) ) {
+            return null;
+        }
+        if ( !slots.tryAcquire() ) {
+            long start = System.nanoTime();
+            slots.acquire();
+            blockedNanos.addAndGet( System.nanoTime() - start );
+        }
+        peakQueued.accumulateAndGet( queued.incrementAndGet(), Math::max );
+        CompletableFuture<T> completion;
+        try {
+            completion = stage.apply( coordinate );
+        } catch ( RuntimeException e ) {
+            queued.decrementAndGet();
+            slots.release();
+            throw e;
+        }
+        completion.whenComplete( ( result, failure ) -> {
+            queued.decrementAndGet();
+            slots.release();
+        } );
+        return completion;
+    }
+
+    /**
+     * Wait until every node that was offered has left the stage.
+     */
+    public void drain() throws InterruptedException {
+        slots.acquire( capacity );
+        slots.release( capacity );
+    }
+
+    /**
+     * The number of nodes offered, counting a node once for every graph that reached it.
+     */
+    public int getNodeCount() {
+        return nodeCount.get();
+    }
+
+    /**
+     * The number of distinct nodes that were passed to the stage.
+     */
+    public int getUniqueCount() {
+        return offeredKeys.size();
+    }
+
+    /**
+     * The largest number of nodes that were in the stage at the same time.
+     */
+    public int getPeakQueued() {
+        return peakQueued.get();
+    }
+
+    /**
+     * How long the walks waited for a free slot, summed over the threads that offered nodes.
+     */
+    public long getBlockedNanos() {
+        return blockedNanos.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
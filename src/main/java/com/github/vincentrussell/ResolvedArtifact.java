@@ -0,0 +1,55 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+
+import java.io.File;
+
+/**
+ * The file an artifact coordinate was resolved to.
+ */
+public class ResolvedArtifact {
+
+    private final ArtifactCoordinate coordinate;
+    private final File file;
+    private final boolean fromLocalRepository;
+    private final String repositoryId;
+    private final long downloadedBytes;
+
+    public ResolvedArtifact(final ArtifactCoordinate coordinate, final File file, final boolean fromLocalRepository,
+                            final String repositoryId, final long downloadedBytes) {
+        this.coordinate = coordinate;
+        this.file = file;
+        this.fromLocalRepository = fromLocalRepository;
+        this.repositoryId = repositoryId;
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    public ArtifactCoordinate getCoordinate() {
+        return coordinate;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Whether the file was already in the local repository and the remote repositories were not contacted.
+     */
+    public boolean isFromLocalRepository() {
+        return fromLocalRepository;
+    }
+
+    /**
+     * The id of the remote repository the file was downloaded from, or null when it isn't known.
+     */
+    public String getRepositoryId() {
+        return repositoryId;
+    }
+
+    /**
+     * The bytes that were downloaded for the file, 0 when it came from the local repository.
+     */
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.vincentrussell;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.MetadataTransferException;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which failures are worth another attempt and how long to wait before it.  Only failures of a transfer are
+ * transient: connect and read timeouts, reset or closed connections and server errors, 408 and 429 responses.  A
+ * missing artifact, any other client error and a failure of the local file system, e.g. while exporting, bundling
+ * or verifying a file, are not.  The wait before every retry is drawn at random between zero and an exponentially
+ * growing bound, so that the retries of many artifacts that failed together are spread out.
+ */
+public class RetryPolicy {
+
+    /**
+     * The status code in the messages of the http transport, e.g. "Bad Gateway (502)", and of the wagon
+     * transport, e.g. "Return code is: 502".
+     */
+    private static final Pattern STATUS_CODE = Pattern.compile(
+            "(?:\\((\\d{3})\\)|return code is:?\\s*(\\d{3})|status(?: code)?:?\\s*(\\d{3}))", Pattern.CASE_INSENSITIVE );
+
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    private final int retries;
+    private final long backoffMillis;
+
+    /**
+     * @param retries       the number of retries after the first attempt
+     * @param backoffMillis the bound of the wait before the first retry, doubled for every further retry
+     */
+    public RetryPolicy(final int retries, final long backoffMillis) {
+        this.retries = Math.max( 0, retries );
+        this.backoffMillis = Math.max( 0, backoffMillis );
+    }
+
+    /**
+     * Whether an attempt that failed with the throwable may be retried.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1
+     */
+    public boolean shouldRetry(final Throwable throwable, final int attempt) {
+        return attempt <= retries && isTransient( throwable );
+    }
+
+    /**
+     * How long to wait before the retry that follows an attempt.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1
+     */
+    public long getDelayMillis(final int attempt) {
+        long bound = Math.min( MAX_BACKOFF_MILLIS, backoffMillis << Math.min( 20, attempt - 1 ) );
+        return bound > 0 ? ThreadLocalRandom.current().nextLong( bound + 1 ) : 0;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Whether a transfer failed because of the network or the server rather than because of the request.
+     */
+    public static boolean isTransient(final Throwable throwable) {
+        if ( NegativeResolutionCache.isNotFound( throwable ) ) {
+            return false;
+        }
+        for ( Throwable cause = throwable; cause != null; cause = cause.getCause() ) {
+            if ( cause instanceof SocketTimeoutException || cause instanceof SocketException
+                    || cause instanceof ConnectTimeoutException || cause instanceof NoHttpResponseException
+                    || cause instanceof ConnectionClosedException ) {
+                return true;
+            }
+            int statusCode = cause instanceof HttpResponseException
+                    ? ( (HttpResponseException) cause ).getStatusCode()
+                    : isTransferFailure( cause ) ? getStatusCode( cause.getMessage() ) : -1;
+            if ( statusCode >= 400 ) {
+                return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+            }
+            if ( cause.getCause() == cause ) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransferFailure(final Throwable throwable) {
+        return throwable instanceof ArtifactTransferException || throwable instanceof MetadataTransferException
+                || throwable instanceof TransferFailedException;
+    }
+
+    static int getStatusCode(final String message) {
+        if ( message == null ) {
+            return -1;
+        }
+        Matcher matcher = STATUS_CODE.matcher( message );
+        while ( matcher.find() ) {
+            for ( int group = 1; group <= matcher.groupCount(); group++ ) {
+                if ( matcher.group( group ) != null ) {
+                    int statusCode = Integer.parseInt( matcher.group( group ) );
+                    if ( statusCode >= 400 && statusCode < 600 ) {
+                        return statusCode;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+}
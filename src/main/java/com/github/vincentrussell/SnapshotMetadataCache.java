@@ -0,0 +1,227 @@
+package com.github.vincentrussell;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.metadata.DefaultMetadata;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.MetadataRequest;
+import org.eclipse.aether.resolution.MetadataResult;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the timestamped version of SNAPSHOT artifacts from the maven-metadata.xml of their version directory,
+ * reading the metadata of every repository and groupId:artifactId:version once per run instead of once per
+ * artifact.  All the classifiers of a version share its metadata.  A copy of the metadata that an earlier run left
+ * in the local repository is reused without a request while it is younger than the reuse window.
+ */
+public class SnapshotMetadataCache {
+
+    private static final String METADATA_FILE = "maven-metadata.xml";
+    private static final String SNAPSHOT = "SNAPSHOT";
+
+    private final MetadataFetcher metadataFetcher;
+    private final long reuseMillis;
+    private final ConcurrentMap<String, CompletableFuture<Versioning>> versionings = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger reusedCount = new AtomicInteger();
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    /**
+     * @param metadataFetcher sends the metadata requests to the repository system
+     * @param reuseMinutes    how long a copy of the metadata in the local repository is used without a request, or
+     *                        0 to request the metadata once every run
+     */
+    public SnapshotMetadataCache(final MetadataFetcher metadataFetcher, final long reuseMinutes) {
+        this.metadataFetcher = metadataFetcher;
+        this.reuseMillis = TimeUnit.MINUTES.toMillis( Math.max( 0, reuseMinutes ) );
+    }
+
+    /**
+     * Sends a metadata request to a single repository, so that the caller can hold the same permits and record the
+     * same metrics as for its other requests.
+     */
+    public interface MetadataFetcher {
+
+        MetadataResult fetch(RepositorySystemSession session, MetadataRequest request) throws IOException;
+    }
+
+    /**
+     * A timestamped version and the repository that has it.
+     */
+    public static final class Resolution {
+
+        private final String version;
+        private final String repositoryId;
+        private final String updated;
+
+        Resolution(final String version, final String repositoryId, final String updated) {
+            this.version = version;
+            this.repositoryId = repositoryId;
+            this.updated = updated;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+    }
+
+    public static boolean isSnapshot(final String version) {
+        return version != null && version.endsWith( SNAPSHOT );
+    }
+
+    /**
+     * The newest timestamped version of a SNAPSHOT artifact across the repositories.
+     *
+     * @return the version or null if none of the repositories has metadata that names one, in which case the
+     * artifact is resolved as usual
+     */
+    public Resolution resolve(final RepositorySystemSession session, final List<RemoteRepository> repositories,
+                              final ArtifactCoordinate artifactCoordinate) {
+        Resolution newest = null;
+        for ( RemoteRepository repository : repositories ) {
+            Versioning versioning = getVersioning( session, repository, artifactCoordinate );
+            Resolution resolution = versioning != null
+                    ? toResolution( versioning, repository.getId(), artifactCoordinate ) : null;
+            if ( resolution != null && ( newest == null || resolution.updated.compareTo( newest.updated ) > 0 ) ) {
+                newest = resolution;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * The number of metadata files that were downloaded.
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * The number of metadata files that were read from the local repository within the reuse window.
+     */
+    public int getReusedCount() {
+        return reusedCount.get();
+    }
+
+    /**
+     * The number of lookups that were answered by metadata read earlier in the run.
+     */
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    private Versioning getVersioning(final RepositorySystemSession session, final RemoteRepository repository,
+                                     final ArtifactCoordinate artifactCoordinate) {
+        String key = repository.getId() + "|" + artifactCoordinate.getGroupId() + ":"
+                + artifactCoordinate.getArtifactId() + ":" + artifactCoordinate.getVersion();
+        CompletableFuture<Versioning> future = new CompletableFuture<>();
+        CompletableFuture<Versioning> first = versionings.putIfAbsent( key, future );
+        if ( first != null ) {
+            hitCount.incrementAndGet();
+            try {
+                return first.join();
+            } catch ( CompletionException e ) {
+                return null;
+            }
+        }
+        try {
+            Versioning versioning = readVersioning( session, repository, artifactCoordinate );
+            future.complete( versioning );
+            return versioning;
+        } catch ( IOException | RuntimeException e ) {
+            versionings.remove( key, future );
+            future.completeExceptionally( e );
+            return null;
+        }
+    }
+
+    /**
+     * Read the metadata of a version from the local copy if it is recent enough, and download it otherwise.
+     *
+     * @return the versioning or null if the repository doesn't have metadata for the version
+     */
+    private Versioning readVersioning(final RepositorySystemSession session, final RemoteRepository repository,
+                                      final ArtifactCoordinate artifactCoordinate) throws IOException {
+        DefaultMetadata metadata = new DefaultMetadata( artifactCoordinate.getGroupId(),
+                artifactCoordinate.getArtifactId(), artifactCoordinate.getVersion(), METADATA_FILE,
+                org.eclipse.aether.metadata.Metadata.Nature.SNAPSHOT );
+        if ( reuseMillis > 0 ) {
+            File localCopy = new File( session.getLocalRepository().getBasedir(),
+                    session.getLocalRepositoryManager().getPathForRemoteMetadata( metadata, repository, "" ) );
+            if ( localCopy.isFile() && System.currentTimeMillis() - localCopy.lastModified() < reuseMillis ) {
+                reusedCount.incrementAndGet();
+                return read( localCopy );
+            }
+        }
+        requestCount.incrementAndGet();
+        MetadataResult result = metadataFetcher.fetch( session, new MetadataRequest( metadata, repository, "" ) );
+        if ( result.getMetadata() != null && result.getMetadata().getFile() != null ) {
+            return read( result.getMetadata().getFile() );
+        }
+        if ( result.getException() == null || result.getException() instanceof MetadataNotFoundException ) {
+            return null;
+        }
+        throw new IOException( "Couldn't download the metadata of " + artifactCoordinate.getGroupId() + ":"
+                + artifactCoordinate.getArtifactId() + ":" + artifactCoordinate.getVersion() + " from "
+                + repository.getId() + ": " + result.getException().getMessage(), result.getException() );
+    }
+
+    private static Versioning read(final File file) throws IOException {
+        try ( Reader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 ) ) {
+            Metadata metadata = new MetadataXpp3Reader().read( reader, false );
+            return metadata.getVersioning();
+        } catch ( XmlPullParserException e ) {
+            throw new IOException( "Couldn't read " + file + ": " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * The version that the metadata names for the classifier and extension of the artifact, falling back to the
+     * snapshot timestamp of metadata written before the versions were listed per classifier.
+     */
+    private static Resolution toResolution(final Versioning versioning, final String repositoryId,
+                                           final ArtifactCoordinate artifactCoordinate) {
+        String classifier = artifactCoordinate.getClassifier() == null ? "" : artifactCoordinate.getClassifier();
+        for ( SnapshotVersion snapshotVersion : versioning.getSnapshotVersions() ) {
+            String snapshotClassifier = snapshotVersion.getClassifier() == null ? "" : snapshotVersion.getClassifier();
+            if ( classifier.equals( snapshotClassifier )
+                    && artifactCoordinate.getExtension().equals( snapshotVersion.getExtension() )
+                    && snapshotVersion.getVersion() != null ) {
+                return new Resolution( snapshotVersion.getVersion(), repositoryId,
+                        snapshotVersion.getUpdated() == null ? "" : snapshotVersion.getUpdated() );
+            }
+        }
+        Snapshot snapshot = versioning.getSnapshot();
+        if ( versioning.getSnapshotVersions().isEmpty() && snapshot != null && !snapshot.isLocalCopy()
+                && snapshot.getTimestamp() != null && snapshot.getBuildNumber() > 0 ) {
+            String version = artifactCoordinate.getVersion();
+            return new Resolution( version.substring( 0, version.length() - SNAPSHOT.length() )
+                    + snapshot.getTimestamp() + "-" + snapshot.getBuildNumber(), repositoryId,
+                    versioning.getLastUpdated() == null ? "" : versioning.getLastUpdated() );
+        }
+        return null;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.vincentrussell;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the index of class names to source files that {@link SourceIndexer} writes.  The file is mapped into memory
+ * and a lookup hashes the class name into an open addressing table, so it takes the same time however many archives
+ * were indexed.
+ * <p>
+ * The file starts with a header of five ints: the magic number, the format version and the number of archives,
+ * classes and slots.  The archives follow as pairs of string offsets, the path of the archive and its
+ * groupId:artifactId:extension:classifier:version, then the slots of the table, each the hash of a class name, the
+ * string offset of the name, the number of its archive and the string offset of its entry, and last the strings,
+ * each an unsigned short length and the UTF-8 bytes.  The slot count is a power of two and an empty slot has a name
+ * offset of -1.
+ */
+public class SourceIndex {
+
+    static final int MAGIC = 0x53524358;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5 * 4;
+    static final int ARCHIVE_BYTES = 2 * 4;
+    static final int SLOT_BYTES = 4 * 4;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int archiveCount;
+    private final int classCount;
+    private final int slotCount;
+    private final int slotsStart;
+    private final int stringsStart;
+
+    private SourceIndex(final File file, final ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if ( buffer.limit() < HEADER_BYTES || buffer.getInt( 0 ) != MAGIC || buffer.getInt( 4 ) != VERSION ) {
+            throw new IOException( file + " is not a source index" );
+        }
+        this.archiveCount = buffer.getInt( 8 );
+        this.classCount = buffer.getInt( 12 );
+        this.slotCount = buffer.getInt( 16 );
+        this.slotsStart = HEADER_BYTES + archiveCount * ARCHIVE_BYTES;
+        this.stringsStart = slotsStart + slotCount * SLOT_BYTES;
+        if ( Integer.bitCount( slotCount ) != 1 || stringsStart > buffer.limit() ) {
+            throw new IOException( file + " is truncated" );
+        }
+    }
+
+    /**
+     * Map an index file into memory.
+     */
+    public static SourceIndex open(final File file) throws IOException {
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            return new SourceIndex( file, buffer );
+        }
+    }
+
+    /**
+     * The source file of a class.  A nested class, e.g. com.example.Outer$Inner, is found in the source file of
+     * its outermost class.
+     *
+     * @return the location or null if none of the indexed archives has the class
+     */
+    public Location find(final String className) {
+        int dollar = className.indexOf( '$' );
+        byte[] name = ( dollar > 0 ? className.substring( 0, dollar ) : className )
+                .getBytes( StandardCharsets.UTF_8 );
+        int hash = hash( name );
+        for ( int probe = 0; probe < slotCount; probe++ ) {
+            int slot = slotsStart + ( ( hash + probe ) & ( slotCount - 1 ) ) * SLOT_BYTES;
+            int nameOffset = buffer.getInt( slot + 4 );
+            if ( nameOffset < 0 ) {
+                return null;
+            }
+            if ( buffer.getInt( slot ) == hash && matches( nameOffset, name ) ) {
+                int archive = HEADER_BYTES + buffer.getInt( slot + 8 ) * ARCHIVE_BYTES;
+                return new Location( new File( readString( buffer.getInt( archive ) ) ),
+                        readString( buffer.getInt( archive + 4 ) ), readString( buffer.getInt( slot + 12 ) ) );
+            }
+        }
+        return null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getArchiveCount() {
+        return archiveCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * The hash of the UTF-8 bytes of a class name, which is the same for the writer and the reader whatever the
+     * platform.
+     */
+    static int hash(final byte[] name) {
+        int hash = 0x811c9dc5;
+        for ( byte b : name ) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return hash ^ ( hash >>> 16 );
+    }
+
+    private boolean matches(final int offset, final byte[] name) {
+        int position = stringsStart + offset;
+        if ( ( buffer.getShort( position ) & 0xffff ) != name.length ) {
+            return false;
+        }
+        for ( int i = 0; i < name.length; i++ ) {
+            if ( buffer.get( position + 2 + i ) != name[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(final int offset) {
+        int position = stringsStart + offset;
+        byte[] bytes = new byte[buffer.getShort( position ) & 0xffff];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            bytes[i] = buffer.get( position + 2 + i );
+        }
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * An archive and the entry of a source file in it.
+     */
+    public static final class Location {
+
+        private final File archive;
+        private final String coordinate;
+        private final String entry;
+
+        Location(final File archive, final String coordinate, final String entry) {
+            this.archive = archive;
+            this.coordinate = coordinate;
+            this.entry = entry;
+        }
+
+        public File getArchive() {
+            return archive;
+        }
+
+        public String getCoordinate() {
+            return coordinate;
+        }
+
+        public String getEntry() {
+            return entry;
+        }
+
+        @Override
+        public String toString() {
+            return archive + "!/" + entry;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.github.vincentrussell;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Indexes the source files of the resolved sources archives by class name while the other artifacts are still being
+ * resolved, and writes the index as one {@link SourceIndex} file when it is closed.  Only the central directory of
+ * every archive is read, right after the archive was resolved.  A class that several archives have is indexed for
+ * the first of them in the order of their coordinates.  An archive that can't be read is left out of the index.
+ */
+public class SourceIndexer {
+
+    private static final List<String> SOURCE_EXTENSIONS = Arrays.asList( ".java", ".kt", ".groovy", ".scala" );
+
+    private final File indexFile;
+    private final ExecutorService readers;
+    private final List<Future<Archive>> scans = new ArrayList<>();
+    private final List<String> unreadable = Collections.synchronizedList( new ArrayList<String>() );
+    private int archiveCount;
+    private int classCount;
+    private int duplicateCount;
+
+    public SourceIndexer(final File indexFile, final int threads) {
+        this.indexFile = indexFile;
+        this.readers = Executors.newFixedThreadPool( Math.max( 1, threads ),
+                new ThreadFactoryBuilder().setNameFormat( "get-indexer-%d" ).setDaemon( true ).build() );
+    }
+
+    /**
+     * Whether the artifact is an archive of source files.
+     */
+    public static boolean isSourcesArchive(final ArtifactCoordinate coordinate) {
+        return "jar".equals( coordinate.getExtension() ) && ( "sources".equals( coordinate.getClassifier() )
+                || "test-sources".equals( coordinate.getClassifier() ) );
+    }
+
+    /**
+     * Queue an archive to be indexed.
+     */
+    public void add(final ArtifactCoordinate coordinate, final File archive) {
+        String key = coordinate.getGroupId() + ":" + coordinate.getArtifactId() + ":" + coordinate.getExtension() + ":"
+                + ( coordinate.getClassifier() == null ? "" : coordinate.getClassifier() ) + ":"
+                + coordinate.getVersion();
+        Future<Archive> scan = readers.submit( () -> {
+            try {
+                return scan( key, archive );
+            } catch ( IOException e ) {
+                unreadable.add( "Couldn't index " + archive + ": " + e.getMessage() );
+                return null;
+            }
+        } );
+        synchronized ( scans ) {
+            scans.add( scan );
+        }
+    }
+
+    /**
+     * Wait for the queued archives and write the index of the ones that could be read.
+     */
+    public void close() throws IOException {
+        List<Archive> archives = new ArrayList<>();
+        try {
+            List<Future<Archive>> pending;
+            synchronized ( scans ) {
+                pending = new ArrayList<>( scans );
+            }
+            for ( Future<Archive> scan : pending ) {
+                Archive archive = scan.get();
+                if ( archive != null ) {
+                    archives.add( archive );
+                }
+            }
+        } catch ( ExecutionException e ) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException( e.getCause().getMessage(), e.getCause() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while indexing the sources for " + indexFile, e );
+        } finally {
+            readers.shutdownNow();
+        }
+        archives.sort( ( first, second ) -> first.coordinate.compareTo( second.coordinate ) );
+        write( archives );
+    }
+
+    /**
+     * Stop indexing without writing the index.
+     */
+    public void abort() {
+        readers.shutdownNow();
+    }
+
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    public int getArchiveCount() {
+        return archiveCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * The archives that couldn't be read and why.
+     */
+    public List<String> getUnreadable() {
+        synchronized ( unreadable ) {
+            return new ArrayList<>( unreadable );
+        }
+    }
+
+    private static Archive scan(final String coordinate, final File file) throws IOException {
+        Map<String, String> classes = new LinkedHashMap<>();
+        try ( ZipFile zipFile = new ZipFile( file ) ) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while ( entries.hasMoreElements() ) {
+                ZipEntry entry = entries.nextElement();
+                String className = getClassName( entry );
+                if ( className != null ) {
+                    classes.putIfAbsent( className, entry.getName() );
+                }
+            }
+        }
+        return new Archive( coordinate, file.getAbsolutePath(), classes );
+    }
+
+    private static String getClassName(final ZipEntry entry) {
+        if ( entry.isDirectory() || entry.getName().startsWith( "META-INF/" ) ) {
+            return null;
+        }
+        String name = entry.getName();
+        int dot = name.lastIndexOf( '.' );
+        if ( dot < 0 || !SOURCE_EXTENSIONS.contains( name.substring( dot ) ) ) {
+            return null;
+        }
+        String className = name.substring( 0, dot ).replace( '/', '.' );
+        if ( className.endsWith( "package-info" ) || className.endsWith( "module-info" ) ) {
+            return null;
+        }
+        return className;
+    }
+
+    private void write(final List<Archive> archives) throws IOException {
+        Map<String, Integer> archiveOf = new LinkedHashMap<>();
+        Map<String, String> entryOf = new HashMap<>();
+        for ( int i = 0; i < archives.size(); i++ ) {
+            for ( Map.Entry<String, String> source : archives.get( i ).classes.entrySet() ) {
+                if ( archiveOf.putIfAbsent( source.getKey(), i ) == null ) {
+                    entryOf.put( source.getKey(), source.getValue() );
+                } else {
+                    duplicateCount++;
+                }
+            }
+        }
+        int slotCount = Integer.highestOneBit( Math.max( 1, archiveOf.size() * 2 - 1 ) ) << 1;
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringOutput = new DataOutputStream( strings );
+        int[] archiveStrings = new int[archives.size() * 2];
+        for ( int i = 0; i < archives.size(); i++ ) {
+            archiveStrings[2 * i] = writeString( stringOutput, archives.get( i ).path );
+            archiveStrings[2 * i + 1] = writeString( stringOutput, archives.get( i ).coordinate );
+        }
+        int[] slots = new int[slotCount * 4];
+        for ( int slot = 0; slot < slotCount; slot++ ) {
+            slots[4 * slot + 1] = -1;
+        }
+        for ( Map.Entry<String, Integer> source : archiveOf.entrySet() ) {
+            byte[] name = source.getKey().getBytes( StandardCharsets.UTF_8 );
+            int hash = SourceIndex.hash( name );
+            int slot = hash & ( slotCount - 1 );
+            while ( slots[4 * slot + 1] >= 0 ) {
+                slot = ( slot + 1 ) & ( slotCount - 1 );
+            }
+            slots[4 * slot] = hash;
+            slots[4 * slot + 1] = writeString( stringOutput, source.getKey() );
+            slots[4 * slot + 2] = source.getValue();
+            slots[4 * slot + 3] = writeString( stringOutput, entryOf.get( source.getKey() ) );
+        }
+
+        File directory = indexFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories( directory.toPath() );
+        File tempFile = File.createTempFile( indexFile.getName(), ".tmp", directory );
+        try ( DataOutputStream output = new DataOutputStream( new BufferedOutputStream(
+                Files.newOutputStream( tempFile.toPath() ) ) ) ) {
+            output.writeInt( SourceIndex.MAGIC );
+            output.writeInt( SourceIndex.VERSION );
+            output.writeInt( archives.size() );
+            output.writeInt( archiveOf.size() );
+            output.writeInt( slotCount );
+            for ( int value : archiveStrings ) {
+                output.writeInt( value );
+            }
+            for ( int value : slots ) {
+                output.writeInt( value );
+            }
+            strings.writeTo( output );
+        }
+        Files.move( tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        archiveCount = archives.size();
+        classCount = archiveOf.size();
+    }
+
+    /**
+     * Append a string to the string section.
+     *
+     * @return its offset in the section
+     */
+    private static int writeString(final DataOutputStream output, final String value) throws IOException {
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        if ( bytes.length > 0xffff ) {
+            throw new IOException( "The name " + value.substring( 0, 64 ) + "... is too long to index" );
+        }
+        int offset = output.size();
+        output.writeShort( bytes.length );
+        output.write( bytes );
+        return offset;
+    }
+
+    private static final class Archive {
+
+        private final String coordinate;
+        private final String path;
+        private final Map<String, String> classes;
+
+        Archive(final String coordinate, final String path, final Map<String, String> classes) {
+            this.coordinate = coordinate;
+            this.path = path;
+            this.classes = classes;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.vincentrussell;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the entries of resolved archives into a single zip file.  The archives are written one at a time on a
+ * dedicated thread while the other artifacts are still being resolved, and every entry is copied through a fixed
+ * size buffer so memory doesn't grow with the size of the archives.
+ * <p>
+ * When the entries are merged, an entry with the same name, size and CRC-32 as one that is already in the bundle is
+ * skipped.  An entry with the same name but other contents is kept in the directory of its archive and reported as
+ * a conflict, so what ends up in the bundle doesn't depend on the order in which the archives were resolved.
+ */
+public class SourcesBundler {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final List<String> ARCHIVE_EXTENSIONS = Arrays.asList( "jar", "zip", "war", "ear", "aar" );
+
+    private final File bundleFile;
+    private final boolean dedupe;
+    private final File tempFile;
+    private final ZipOutputStream zipOutputStream;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat( "get-bundler-%d" ).setDaemon( true ).build() );
+    private final Map<String, Written> writtenEntries;
+    private final List<String> conflicts = Collections.synchronizedList( new ArrayList<String>() );
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private volatile IOException failure;
+    private int archiveCount;
+    private int skippedCount;
+
+    /**
+     * @param bundleFile the archive to create
+     * @param dedupe     merge the entries of all archives at the root of the bundle, keeping one of the identical
+     *                   entries.  Otherwise each archive is placed in its own directory.
+     */
+    public SourcesBundler(final File bundleFile, final boolean dedupe) throws IOException {
+        this.bundleFile = bundleFile;
+        this.dedupe = dedupe;
+        this.writtenEntries = dedupe ? new HashMap<String, Written>() : null;
+        File parent = bundleFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories( parent.toPath() );
+        this.tempFile = File.createTempFile( bundleFile.getName(), ".tmp", parent );
+        this.zipOutputStream = new ZipOutputStream( new BufferedOutputStream(
+                Files.newOutputStream( tempFile.toPath() ), BUFFER_SIZE ) );
+    }
+
+    /**
+     * Whether the artifact is a zip based archive of sources or test sources that goes into a bundle.  Other
+     * classified archives, like javadoc jars, would only mix generated files into the bundle of sources.
+     */
+    public static boolean isBundled(final ArtifactCoordinate coordinate) {
+        return ( "sources".equals( coordinate.getClassifier() ) || "test-sources".equals( coordinate.getClassifier() ) )
+                && ARCHIVE_EXTENSIONS.contains( coordinate.getExtension() );
+    }
+
+    /**
+     * Queue the archive to be written to the bundle.
+     */
+    public void add(final ArtifactCoordinate coordinate, final File archive) {
+        writer.execute( () -> {
+            if ( failure != null ) {
+                return;
+            }
+            try {
+                write( coordinate, archive );
+            } catch ( IOException e ) {
+                failure = new IOException( "Couldn't add " + archive + " to " + bundleFile + ": " + e.getMessage(), e );
+            }
+        } );
+    }
+
+    /**
+     * Wait for the queued archives to be written and move the bundle into place.
+     */
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            while ( !writer.awaitTermination( 1, TimeUnit.MINUTES ) ) {
+                // keep waiting, the last archive may be large
+            }
+        } catch ( InterruptedException e ) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while writing " + bundleFile, e );
+        }
+        zipOutputStream.close();
+        if ( failure != null ) {
+            Files.deleteIfExists( tempFile.toPath() );
+            throw failure;
+        }
+        Files.move( tempFile.toPath(), bundleFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    /**
+     * Stop writing and remove the partially written bundle.
+     */
+    public void abort() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination( 1, TimeUnit.MINUTES );
+            zipOutputStream.close();
+        } catch ( IOException e ) {
+            // the bundle is deleted anyway
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        tempFile.delete();
+    }
+
+    public File getBundleFile() {
+        return bundleFile;
+    }
+
+    public int getArchiveCount() {
+        return archiveCount;
+    }
+
+    /**
+     * The number of entries that were skipped because an identical entry was in the bundle already.
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * The entries with the same name as an entry of another archive but other contents.
+     */
+    public List<String> getConflicts() {
+        synchronized ( conflicts ) {
+            return new ArrayList<>( conflicts );
+        }
+    }
+
+    private void write(final ArtifactCoordinate coordinate, final File archive) throws IOException {
+        String directory = coordinate.getGroupId() + "/" + coordinate.getArtifactId() + "-" + coordinate.getVersion()
+                + ( StringUtils.isEmpty( coordinate.getClassifier() ) ? "" : "-" + coordinate.getClassifier() ) + "/";
+        try ( ZipFile zipFile = new ZipFile( archive ) ) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while ( entries.hasMoreElements() ) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if ( !dedupe ) {
+                    name = directory + name;
+                } else {
+                    Written written = writtenEntries.putIfAbsent( name, entry.isDirectory() ? Written.DIRECTORY
+                            : new Written( entry, directory ) );
+                    if ( written != null && ( entry.isDirectory() || written.isSame( entry ) ) ) {
+                        skippedCount++;
+                        continue;
+                    }
+                    if ( written != null ) {
+                        conflicts.add( name + " differs between " + written.directory + " and " + directory );
+                        name = directory + name;
+                    }
+                }
+                ZipEntry outputEntry = new ZipEntry( name );
+                if ( entry.getTime() != -1 ) {
+                    outputEntry.setTime( entry.getTime() );
+                }
+                zipOutputStream.putNextEntry( outputEntry );
+                try ( InputStream inputStream = zipFile.getInputStream( entry ) ) {
+                    int read;
+                    while ( ( read = inputStream.read( buffer ) ) != -1 ) {
+                        zipOutputStream.write( buffer, 0, read );
+                    }
+                }
+                zipOutputStream.closeEntry();
+            }
+        }
+        archiveCount++;
+    }
+
+    /**
+     * The size and CRC-32 of an entry at the root of the bundle and the directory of the archive it came from.
+     */
+    private static final class Written {
+
+        private static final Written DIRECTORY = new Written( -1, -1, null );
+
+        private final long size;
+        private final long crc;
+        private final String directory;
+
+        Written(final ZipEntry entry, final String directory) {
+            this( entry.getSize(), entry.getCrc(), directory );
+        }
+
+        private Written(final long size, final long crc, final String directory) {
+            this.size = size;
+            this.crc = crc;
+            this.directory = directory;
+        }
+
+        boolean isSame(final ZipEntry entry) {
+            return size == entry.getSize() && crc == entry.getCrc();
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.apache.maven.execution.DefaultMavenExecutionRequest;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
@@ -45,12 +46,25 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 public class GetSourcesMojoTest extends AbstractMojoTestCase {
 
     private int httpPort = FreePortFinder.findFreeLocalPort();
     private Server jettyServer;
+    private NexusServlet nexusServlet;
 
     @Rule
     TemporaryFolder temporaryFolder = new TemporaryFolder();
@@ -72,9 +86,11 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
         jettyServer = new Server();
         ServerConnector httpConnector = new ServerConnector(jettyServer);
         ServletHandler servletHandler = new ServletHandler();
-        NexusServlet nexusServlet = new NexusServlet(jettyNexusBaseDir);
+        nexusServlet = new NexusServlet(jettyNexusBaseDir);
         ServletHolder servletHolder = new ServletHolder(nexusServlet);
         servletHandler.addServletWithMapping(servletHolder, "/repository/thirdparty/*");
+        servletHandler.addServletWithMapping(new ServletHolder(new FlakyServlet(jettyNexusBaseDir)), "/repository/flaky/*");
+        servletHandler.addServletWithMapping(new ServletHolder(new BrokenServlet()), "/repository/broken/*");
         httpConnector.setPort(httpPort);
         jettyServer.setConnectors(new Connector[] {httpConnector});
         jettyServer.setHandler(servletHandler);
@@ -208,6 +224,895 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
         assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-javadoc.jar").toFile().exists());
     }
 
+    @Test
+    public void testSourcesTransitiveTrueMissingSourcesDoesNotStopOtherArtifacts() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>2</threads>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        assertTrue(new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact-2", "2.4"), "cool-artifact-2-2.4-sources.jar").delete());
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueCollectOnly() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <collectOnly>true</collectOnly>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4.jar").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5.jar").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueArtifactFile() throws Exception {
+
+        File artifactFile = temporaryFolder.newFile("artifacts.txt");
+        FileUtils.write(artifactFile, "# roots\n" +
+                "com.github.vincentrussell:cool-artifact:1.0:jar:sources\n" +
+                "\n" +
+                "com.github.vincentrussell:cool-artifact-2:2.4:jar:sources\n", "UTF-8");
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifactFile>" + artifactFile.getAbsolutePath() + "</artifactFile>\n" +
+                "                    <transitive>true</transitive>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        simulateRemoteMavenFiles(jettyNexusBaseDir, "cool-artifact-4", "1.2", "");
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+        setVariableValueToObject(getSourcesMojo, "artifacts", Collections.singletonList("com.github.vincentrussell:cool-artifact-4:1.2:jar:sources"));
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-4", "1.2", "cool-artifact-4-1.2-sources.jar").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueMissingSourcesAreNotRequestedAgain() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        File remoteSources = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact-2", "2.4"), "cool-artifact-2-2.4-sources.jar");
+        File remoteSourcesBackup = new File(remoteSources.getParentFile(), "sources.bak");
+        assertTrue(remoteSources.renameTo(remoteSourcesBackup));
+        File localSources = Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        ((GetMojo) lookupConfiguredMojo( session, execution )).execute();
+        assertFalse(localSources.exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "missing.properties").toFile().exists());
+
+        assertTrue(remoteSourcesBackup.renameTo(remoteSources));
+        ((GetMojo) lookupConfiguredMojo( session, execution )).execute();
+        assertFalse(localSources.exists());
+
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+        setVariableValueToObject(getSourcesMojo, "refreshNegativeCache", true);
+        getSourcesMojo.execute();
+        assertTrue(localSources.exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveFalseAlreadyInLocalRepository() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>false</transitive>\n" +
+                "                    <updatePolicy>daily</updatePolicy>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        File localArtifactDir = getBaseDirectoryForArtifact(localBaseDir, "cool-artifact", "1.0");
+        File localSources = createFile("cool-artifact", "1.0", localArtifactDir, "-sources.jar");
+        jettyServer.stop();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(localSources.exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueMultipleRepositories() throws Exception {
+
+        String config = "<remoteRepositories>empty::::http://localhost:" + httpPort + "/repository/empty/,"
+                + "thirdparty::::http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>1</threads>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueExportGroupLayout() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("export");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <exportLayout>group</exportLayout>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        File localSources = Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile();
+        File exportedSources = Paths.get(outputDirectory.getAbsolutePath(), "com.github.vincentrussell", "cool-artifact-2-2.4-sources.jar").toFile();
+        assertTrue(exportedSources.exists());
+        assertTrue(FileUtils.contentEquals(localSources, exportedSources));
+        assertTrue(Paths.get(outputDirectory.getAbsolutePath(), "com.github.vincentrussell", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(outputDirectory.getAbsolutePath(), "com.github.vincentrussell", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        assertEquals(3, new File(outputDirectory, "com.github.vincentrussell").list().length);
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueBundle() throws Exception {
+
+        File bundleFile = new File(temporaryFolder.getRoot(), "bundle/sources.zip");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <bundleFile>" + bundleFile.getAbsolutePath() + "</bundleFile>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        writeRemoteSourcesJar("cool-artifact", "1.0", "com/github/vincentrussell/Cool.java");
+        writeRemoteSourcesJar("cool-artifact-2", "2.4", "com/github/vincentrussell/two/Cool2.java", "com/github/vincentrussell/Cool.java");
+        writeRemoteSourcesJar("cool-artifact-3", "2.5", "com/github/vincentrussell/three/Cool3.java");
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(bundleFile.exists());
+        try (ZipFile zipFile = new ZipFile(bundleFile)) {
+            assertNotNull(zipFile.getEntry("com/github/vincentrussell/Cool.java"));
+            assertNotNull(zipFile.getEntry("com/github/vincentrussell/two/Cool2.java"));
+            assertNotNull(zipFile.getEntry("com/github/vincentrussell/three/Cool3.java"));
+            assertNotNull(zipFile.getEntry("META-INF/MANIFEST.MF"));
+            assertEquals(4, Collections.list(zipFile.entries()).size());
+        }
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueSourceIndex() throws Exception {
+
+        File indexFile = new File(temporaryFolder.getRoot(), "index/sources.idx");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <sourceIndexFile>" + indexFile.getAbsolutePath() + "</sourceIndexFile>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        writeRemoteSourcesJar("cool-artifact", "1.0", "com/github/vincentrussell/Cool.java", "com/github/vincentrussell/package-info.java");
+        writeRemoteSourcesJar("cool-artifact-2", "2.4", "com/github/vincentrussell/two/Cool2.java", "com/github/vincentrussell/two/Cool2Kt.kt");
+        writeRemoteSourcesJar("cool-artifact-3", "2.5", "com/github/vincentrussell/three/Cool3.java", "com/github/vincentrussell/Cool.java");
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(indexFile.exists());
+        SourceIndex sourceIndex = SourceIndex.open(indexFile);
+        assertEquals(3, sourceIndex.getArchiveCount());
+        assertEquals(4, sourceIndex.getClassCount());
+        SourceIndex.Location location = sourceIndex.find("com.github.vincentrussell.two.Cool2");
+        assertNotNull(location);
+        assertEquals("com/github/vincentrussell/two/Cool2.java", location.getEntry());
+        assertEquals("com.github.vincentrussell:cool-artifact-2:jar:sources:2.4", location.getCoordinate());
+        assertTrue(location.getArchive().getName().equals("cool-artifact-2-2.4-sources.jar"));
+        assertEquals("com/github/vincentrussell/two/Cool2Kt.kt", sourceIndex.find("com.github.vincentrussell.two.Cool2Kt").getEntry());
+        assertEquals("com.github.vincentrussell:cool-artifact-3:jar:sources:2.5", sourceIndex.find("com.github.vincentrussell.Cool$Inner").getCoordinate());
+        assertNotNull(sourceIndex.find("com.github.vincentrussell.three.Cool3"));
+        assertNull(sourceIndex.find("com.github.vincentrussell.package-info"));
+        assertNull(sourceIndex.find("com.github.vincentrussell.Missing"));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueSourceIndexSkipsCorruptArchive() throws Exception {
+
+        File indexFile = new File(temporaryFolder.getRoot(), "index/sources.idx");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <sourceIndexFile>" + indexFile.getAbsolutePath() + "</sourceIndexFile>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        writeRemoteSourcesJar("cool-artifact", "1.0", "com/github/vincentrussell/Cool.java");
+        writeRemoteSourcesJar("cool-artifact-2", "2.4", "com/github/vincentrussell/two/Cool2.java");
+        File corruptJar = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact-3", "2.5"), "cool-artifact-3-2.5-sources.jar");
+        FileUtils.writeByteArrayToFile(corruptJar, "not a zip".getBytes("UTF-8"));
+        new File(corruptJar.getPath() + ".sha1").delete();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        SourceIndex sourceIndex = SourceIndex.open(indexFile);
+        assertEquals(2, sourceIndex.getArchiveCount());
+        assertNotNull(sourceIndex.find("com.github.vincentrussell.two.Cool2"));
+        assertNull(sourceIndex.find("com.github.vincentrussell.three.Cool3"));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueIncrementalReusesManifest() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <incremental>true</incremental>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        ((GetMojo) lookupConfiguredMojo( session, execution )).execute();
+
+        File[] manifests = Paths.get(localBaseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "manifests").toFile().listFiles();
+        assertNotNull(manifests);
+        assertEquals(1, manifests.length);
+        String manifest = FileUtils.readFileToString(manifests[0], "UTF-8");
+        assertEquals(3, StringUtils.countMatches(manifest, "RESOLVED\t"));
+        assertTrue(manifest.contains("com.github.vincentrussell:cool-artifact-3:jar:sources:2.5"));
+
+        jettyServer.stop();
+        assertTrue(new File(getBaseDirectoryForArtifact(localBaseDir, "cool-artifact-2", "2.4"), "cool-artifact-2-2.4.pom").delete());
+        assertTrue(new File(getBaseDirectoryForArtifact(localBaseDir, "cool-artifact-3", "2.5"), "cool-artifact-3-2.5.pom").delete());
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+        setVariableValueToObject(getSourcesMojo, "preferLocal", false);
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueMetricsReport() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("metrics");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        File metricsFile = new File(outputDirectory, "extended-dependency-metrics.json");
+        assertTrue(metricsFile.exists());
+        String metrics = FileUtils.readFileToString(metricsFile, "UTF-8");
+        assertTrue(metrics.contains("\"graph collection\""));
+        assertTrue(metrics.contains("\"remote\": 2"));
+        assertTrue(metrics.contains("\"local\": 1"));
+        assertTrue(metrics.contains("\"bytes\": 4000"));
+        assertTrue(metrics.contains("{\"artifact\": \"com.github.vincentrussell:cool-artifact:jar:sources:1.0\", \"source\": \"local\""));
+        assertTrue(metrics.contains("\"artifact\": \"com.github.vincentrussell:cool-artifact-3:jar:sources:2.5\""));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueMaxConnectionsPerHost() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("connections");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>4</threads>\n" +
+                "                    <maxConnectionsPerHost>1</maxConnectionsPerHost>\n" +
+                "                    <connectTimeout>5000</connectTimeout>\n" +
+                "                    <readTimeout>5000</readTimeout>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("\"localhost:" + httpPort + "\": {\"requests\": "));
+        assertTrue(metrics.contains("\"peakConcurrency\": 1,"));
+    }
+
+    @Test
+    public void testSourcesTransitiveFalseRetriesTransientFailures() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/flaky/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>false</transitive>\n" +
+                "                    <retryBackoffMillis>10</retryBackoffMillis>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueCircuitBreakerSkipsBrokenRepository() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("circuit-breaker");
+        String config = "<remoteRepositories>broken::::http://localhost:" + httpPort + "/repository/broken/,"
+                + "thirdparty::::http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>1</threads>\n" +
+                "                    <repositoryScheduling>true</repositoryScheduling>\n" +
+                "                    <retries>0</retries>\n" +
+                "                    <circuitBreakerThreshold>1</circuitBreakerThreshold>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("\"repository circuit breakers opened\": 1"));
+        assertTrue(metrics.contains("\"requests not sent to broken by its circuit breaker\": "));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueMissingSourcesAreNotCachedWhenRepositoryIsSkipped() throws Exception {
+
+        String config = "<remoteRepositories>broken::::http://localhost:" + httpPort + "/repository/broken/,"
+                + "thirdparty::::http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>1</threads>\n" +
+                "                    <retries>0</retries>\n" +
+                "                    <circuitBreakerThreshold>1</circuitBreakerThreshold>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        File remoteSources = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact-3", "2.5"), "cool-artifact-3-2.5-sources.jar");
+        assertTrue(remoteSources.delete());
+
+        MojoExecution execution = newMojoExecution( "get" );
+        ((GetMojo) lookupConfiguredMojo( session, execution )).execute();
+        File missing = Paths.get(localBaseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "missing.properties").toFile();
+        assertFalse(missing.exists() && FileUtils.readFileToString(missing, "UTF-8").contains("cool-artifact-3"));
+    }
+
+    @Test
+    public void testTransitiveTrueReactor() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <reactor>true</reactor>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <classifiers>\n" +
+                "                        <classifier>sources</classifier>\n" +
+                "                    </classifiers>\n" +
+                "                    <scopes>\n" +
+                "                        <scope>compile</scope>\n" +
+                "                    </scopes>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        MavenProject moduleA = readMavenProject(createModule("module-a", "<dependency>\n" +
+                "      <groupId>com.github.vincentrussell</groupId>\n" +
+                "      <artifactId>cool-artifact</artifactId>\n" +
+                "      <version>1.0</version>\n" +
+                "    </dependency>\n" +
+                "    <dependency>\n" +
+                "      <groupId>com.github.vincentrussell</groupId>\n" +
+                "      <artifactId>module-b</artifactId>\n" +
+                "      <version>1.0-SNAPSHOT</version>\n" +
+                "    </dependency>\n"));
+        MavenProject moduleB = readMavenProject(createModule("module-b", "<dependency>\n" +
+                "      <groupId>com.github.vincentrussell</groupId>\n" +
+                "      <artifactId>cool-artifact-3</artifactId>\n" +
+                "      <version>2.5</version>\n" +
+                "    </dependency>\n"));
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        session.setProjects(Arrays.asList(moduleA, moduleB, mavenProject));
+        session.setCurrentProject(mavenProject);
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "module-b").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "junit").toFile().exists());
+    }
+
+    private File createModule(String artifactId, String dependencies) throws IOException {
+        File moduleDirectory = temporaryFolder.newFolder(artifactId);
+        FileUtils.write(new File(moduleDirectory, "pom.xml"), "<project>\n" +
+                "  <modelVersion>4.0.0</modelVersion>\n" +
+                "  <groupId>com.github.vincentrussell</groupId>\n" +
+                "  <artifactId>" + artifactId + "</artifactId>\n" +
+                "  <version>1.0-SNAPSHOT</version>\n" +
+                "  <dependencies>\n" +
+                "    " + dependencies +
+                "  </dependencies>\n" +
+                "</project>\n", "UTF-8");
+        return moduleDirectory;
+    }
+
+    @Test
+    public void testTransitiveTrueMultipleClassifiers() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0</artifact>\n" +
+                "                    <classifiers>\n" +
+                "                        <classifier>sources</classifier>\n" +
+                "                        <classifier>javadoc</classifier>\n" +
+                "                    </classifiers>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <collectOnly>true</collectOnly>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        for (String[] node : new String[][] {{"cool-artifact", "1.0"}, {"cool-artifact-2", "2.4"}, {"cool-artifact-3", "2.5"}}) {
+            File localArtifactDir = getBaseDirectoryForArtifact(localBaseDir, node[0], node[1]);
+            assertTrue(new File(localArtifactDir, node[0] + "-" + node[1] + "-sources.jar").exists());
+            assertTrue(new File(localArtifactDir, node[0] + "-" + node[1] + "-javadoc.jar").exists());
+            assertFalse(new File(localArtifactDir, node[0] + "-" + node[1] + ".jar").exists());
+        }
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueLocalIndex() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <localIndex>true</localIndex>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        ((GetMojo) lookupConfiguredMojo( session, execution )).execute();
+        File indexFile = Paths.get(localBaseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "local-index").toFile();
+        assertTrue(indexFile.exists());
+
+        jettyServer.stop();
+        ((GetMojo) lookupConfiguredMojo( session, execution )).execute();
+        String index = FileUtils.readFileToString(indexFile, "UTF-8");
+        assertTrue(index.contains("D\tcom/github/vincentrussell/cool-artifact-3/2.5\t"));
+        assertTrue(index.contains("F\tcool-artifact-3-2.5-sources.jar\t"));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueSharedLocalRepository() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <preferLocal>false</preferLocal>\n" +
+                "                    <sharedLocalRepository>true</sharedLocalRepository>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        final GetMojo first = (GetMojo) lookupConfiguredMojo( session, execution );
+        final GetMojo second = (GetMojo) lookupConfiguredMojo( session, execution );
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> firstRun = executorService.submit(() -> { first.execute(); return null; });
+            Future<?> secondRun = executorService.submit(() -> { second.execute(); return null; });
+            firstRun.get();
+            secondRun.get();
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "locks").toFile().isDirectory());
+    }
+
+    @Test
+    public void testSourcesTransitiveFalseDuplicateArtifactsAreResolvedOnce() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("metrics");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifacts>\n" +
+                "                        <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                        <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    </artifacts>\n" +
+                "                    <transitive>false</transitive>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateRemoteMavenFiles(jettyNexusBaseDir, "cool-artifact", "1.0", "");
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("\"resolution calls saved by coalescing\": 1"));
+        assertTrue(metrics.contains("\"remote\": 1"));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueVerifyChecksums() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("verified");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <exportLayout>flat</exportLayout>\n" +
+                "                    <metricsReport>true</metricsReport>\n" +
+                "                    <verifyChecksums>true</verifyChecksums>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+        File remoteSources = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact", "1.0"), "cool-artifact-1.0-sources.jar");
+        FileUtils.write(new File(remoteSources.getPath() + ".sha1"), Checksums.hash(remoteSources, "SHA-1"), "UTF-8");
+        FileUtils.write(new File(remoteSources.getPath() + ".sha256"), Checksums.hash(remoteSources, "SHA-256"), "UTF-8");
+        File tamperedSources = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact-2", "2.4"), "cool-artifact-2-2.4-sources.jar");
+        FileUtils.write(new File(tamperedSources.getPath() + ".sha1"), Checksums.hash(tamperedSources, "SHA-1"), "UTF-8");
+        FileUtils.write(new File(tamperedSources.getPath() + ".sha512"), Checksums.hash(remoteSources, "SHA-512"), "UTF-8");
+        File unsignedSources = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-artifact-3", "2.5"), "cool-artifact-3-2.5-sources.jar");
+        assertTrue(new File(unsignedSources.getPath() + ".sha1").delete());
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        try {
+            getSourcesMojo.execute();
+            fail("a quarantined artifact should fail the build");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage().contains("com.github.vincentrussell:cool-artifact-2:jar:sources:2.4"));
+        }
+        assertTrue(new File(outputDirectory, "cool-artifact-1.0-sources.jar").exists());
+        assertFalse(new File(outputDirectory, "cool-artifact-2-2.4-sources.jar").exists());
+        assertTrue(new File(outputDirectory, "cool-artifact-3-2.5-sources.jar").exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), ".cache", "extended-dependency-plugin", "quarantine", "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("{\"artifact\": \"com.github.vincentrussell:cool-artifact:jar:sources:1.0\", \"outcome\": \"verified\""));
+        assertTrue(metrics.contains("{\"artifact\": \"com.github.vincentrussell:cool-artifact-2:jar:sources:2.4\", \"outcome\": \"quarantined\""));
+        assertTrue(metrics.contains("{\"artifact\": \"com.github.vincentrussell:cool-artifact-3:jar:sources:2.5\", \"outcome\": \"unverified\""));
+
+        GetMojo lenientMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+        setVariableValueToObject(lenientMojo, "failOnChecksumMismatch", false);
+        lenientMojo.execute();
+        assertFalse(new File(outputDirectory, "cool-artifact-2-2.4-sources.jar").exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueMaxDepth() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <maxDepth>1</maxDepth>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueCollectOnlyExcludes() throws Exception {
+
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <collectOnly>true</collectOnly>\n" +
+                "                    <excludes>\n" +
+                "                        <exclude>com.github.*:cool-artifact-2</exclude>\n" +
+                "                    </excludes>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2").toFile().exists());
+        assertFalse(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3").toFile().exists());
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueRepositoryBase() throws Exception {
+
+        File repositoryBase = temporaryFolder.newFolder("mirror");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <repositoryBase>" + repositoryBase.getAbsolutePath() + "</repositoryBase>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        File versionDirectory = Paths.get(repositoryBase.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4").toFile();
+        File sources = new File(versionDirectory, "cool-artifact-2-2.4-sources.jar");
+        assertTrue(sources.exists());
+        assertEquals(Checksums.hash(sources, "SHA-1"), FileUtils.readFileToString(new File(sources.getPath() + ".sha1"), "UTF-8"));
+        assertTrue(new File(sources.getPath() + ".md5").exists());
+        assertTrue(new File(versionDirectory, "cool-artifact-2-2.4.pom").exists());
+        assertTrue(new File(versionDirectory, "cool-artifact-2-2.4.pom.sha1").exists());
+        assertTrue(Paths.get(repositoryBase.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        File metadata = Paths.get(repositoryBase.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "maven-metadata.xml").toFile();
+        assertTrue(metadata.exists());
+        assertTrue(new File(metadata.getPath() + ".sha1").exists());
+        String metadataContent = FileUtils.readFileToString(metadata, "UTF-8");
+        assertTrue(metadataContent.contains("<version>1.0</version>"));
+        assertTrue(metadataContent.contains("<release>1.0</release>"));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueQueueCapacity() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("metrics");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifacts>\n" +
+                "                        <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                        <artifact>com.github.vincentrussell:cool-artifact-2:2.4:jar:sources</artifact>\n" +
+                "                    </artifacts>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>2</threads>\n" +
+                "                    <queueCapacity>1</queueCapacity>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("\"resolution calls saved by coalescing\": 2"));
+    }
+
+    @Test
+    public void testSourcesTransitiveTrueDownloadLimits() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("metrics");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-artifact:1.0:jar:sources</artifact>\n" +
+                "                    <transitive>true</transitive>\n" +
+                "                    <threads>2</threads>\n" +
+                "                    <maxConcurrentDownloads>1</maxConcurrentDownloads>\n" +
+                "                    <maxBytesPerSecond>100000</maxBytesPerSecond>\n" +
+                "                    <largeDownloadBytes>1</largeDownloadBytes>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        simulateTransitiveRemoteMavenFiles();
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact", "1.0", "cool-artifact-1.0-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-2", "2.4", "cool-artifact-2-2.4-sources.jar").toFile().exists());
+        assertTrue(Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", "cool-artifact-3", "2.5", "cool-artifact-3-2.5-sources.jar").toFile().exists());
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("\"milliseconds paused by the bandwidth budget\""));
+        assertTrue(metrics.contains("\"peakConcurrency\": 1"));
+    }
+
+    @Test
+    public void testTransitiveFalseSnapshotMetadataIsRequestedOnce() throws Exception {
+
+        File outputDirectory = temporaryFolder.newFolder("metrics");
+        String config = "<remoteRepositories>http://localhost:" + httpPort + "/repository/thirdparty/</remoteRepositories>\n" +
+                "                    <artifact>com.github.vincentrussell:cool-snapshot:1.0-SNAPSHOT</artifact>\n" +
+                "                    <classifiers>\n" +
+                "                        <classifier>sources</classifier>\n" +
+                "                        <classifier>javadoc</classifier>\n" +
+                "                    </classifiers>\n" +
+                "                    <transitive>false</transitive>\n" +
+                "                    <outputDirectory>" + outputDirectory.getAbsolutePath() + "</outputDirectory>\n" +
+                "                    <metricsReport>true</metricsReport>";
+
+        MavenProject mavenProject = readMavenProject(new TestProjectConfig(temporaryFolder).getFile(config).getParentFile());
+        mavenProject.getProperties().put("maven.repo.local", localBaseDir.getAbsolutePath());
+        MavenSession session = finishSessionCreation(newMavenSession( mavenProject ));
+        String timestampedVersion = "1.0-20201010.101010-1";
+        File remoteSnapshotDir = getBaseDirectoryForArtifact(jettyNexusBaseDir, "cool-snapshot", "1.0-SNAPSHOT");
+        remoteSnapshotDir.mkdirs();
+        createFile("cool-snapshot", timestampedVersion, remoteSnapshotDir, "-sources.jar");
+        createFile("cool-snapshot", timestampedVersion, remoteSnapshotDir, "-javadoc.jar");
+        FileUtils.write(new File(remoteSnapshotDir, "maven-metadata.xml"), "" +
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<metadata>\n" +
+                "  <groupId>com.github.vincentrussell</groupId>\n" +
+                "  <artifactId>cool-snapshot</artifactId>\n" +
+                "  <version>1.0-SNAPSHOT</version>\n" +
+                "  <versioning>\n" +
+                "    <snapshot>\n" +
+                "      <timestamp>20201010.101010</timestamp>\n" +
+                "      <buildNumber>1</buildNumber>\n" +
+                "    </snapshot>\n" +
+                "    <lastUpdated>20201010101010</lastUpdated>\n" +
+                "    <snapshotVersions>\n" +
+                "      <snapshotVersion>\n" +
+                "        <classifier>sources</classifier>\n" +
+                "        <extension>jar</extension>\n" +
+                "        <value>" + timestampedVersion + "</value>\n" +
+                "        <updated>20201010101010</updated>\n" +
+                "      </snapshotVersion>\n" +
+                "      <snapshotVersion>\n" +
+                "        <classifier>javadoc</classifier>\n" +
+                "        <extension>jar</extension>\n" +
+                "        <value>" + timestampedVersion + "</value>\n" +
+                "        <updated>20201010101010</updated>\n" +
+                "      </snapshotVersion>\n" +
+                "    </snapshotVersions>\n" +
+                "  </versioning>\n" +
+                "</metadata>\n", "UTF-8");
+
+        MojoExecution execution = newMojoExecution( "get" );
+        GetMojo getSourcesMojo = (GetMojo) lookupConfiguredMojo( session, execution );
+
+        getSourcesMojo.execute();
+        File localSnapshotDir = getBaseDirectoryForArtifact(localBaseDir, "cool-snapshot", "1.0-SNAPSHOT");
+        assertTrue(new File(localSnapshotDir, "cool-snapshot-" + timestampedVersion + "-sources.jar").exists());
+        assertTrue(new File(localSnapshotDir, "cool-snapshot-" + timestampedVersion + "-javadoc.jar").exists());
+        assertEquals(1, nexusServlet.countRequests("/cool-snapshot/1.0-SNAPSHOT/maven-metadata.xml"));
+        String metrics = FileUtils.readFileToString(new File(outputDirectory, "extended-dependency-metrics.json"), "UTF-8");
+        assertTrue(metrics.contains("\"snapshot metadata downloaded\""));
+        assertFalse(metrics.contains("\"snapshot metadata lookups answered within the run\": 0"));
+    }
+
+    private void simulateTransitiveRemoteMavenFiles() throws IOException {
+        simulateRemoteMavenFiles(jettyNexusBaseDir, "cool-artifact-3", "2.5", "");
+        simulateRemoteMavenFiles(jettyNexusBaseDir, "cool-artifact-2", "2.4", "<dependency>\n" +
+                "      <groupId>com.github.vincentrussell</groupId>\n" +
+                "      <artifactId>cool-artifact-3</artifactId>\n" +
+                "      <version>2.5</version>\n" +
+                "    </dependency>\n");
+        simulateRemoteMavenFiles(jettyNexusBaseDir, "cool-artifact", "1.0", "<dependency>\n" +
+                "      <groupId>com.github.vincentrussell</groupId>\n" +
+                "      <artifactId>cool-artifact-2</artifactId>\n" +
+                "      <version>2.4</version>\n" +
+                "    </dependency>\n");
+    }
+
     private static void verifyDirsAreEqual(final Path one, final Path other) throws IOException {
         Files.walkFileTree(one, new SimpleFileVisitor<Path>() {
             @Override
@@ -257,6 +1162,21 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
         createFile(artifactId, version, coolArtifactDir, "-sources.jar.sha1");
     }
 
+    private void writeRemoteSourcesJar(String artifactId, String version, String... entries) throws IOException {
+        File sourcesJar = new File(getBaseDirectoryForArtifact(jettyNexusBaseDir, artifactId, version), artifactId + "-" + version + "-sources.jar");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(sourcesJar))) {
+            zipOutputStream.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zipOutputStream.write("Manifest-Version: 1.0\n".getBytes("UTF-8"));
+            zipOutputStream.closeEntry();
+            for (String entry : entries) {
+                zipOutputStream.putNextEntry(new ZipEntry(entry));
+                zipOutputStream.write(("// " + entry + "\n").getBytes("UTF-8"));
+                zipOutputStream.closeEntry();
+            }
+        }
+        new File(sourcesJar.getPath() + ".sha1").delete();
+    }
+
     private File getBaseDirectoryForArtifact(File localBaseDir, String artifactId, String version) {
         return Paths.get(localBaseDir.getAbsolutePath(), "com", "github", "vincentrussell", artifactId, version).toFile();
     }
@@ -302,6 +1222,7 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
     public static class NexusServlet extends HttpServlet {
 
         private final File baseDir;
+        private final List<String> requestedUris = Collections.synchronizedList(new ArrayList<String>());
 
         public NexusServlet(File baseDir) {
             this.baseDir = baseDir;
@@ -311,8 +1232,9 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
         protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 
             String url = request.getRequestURI();
+            requestedUris.add(url);
 
-            if (url.endsWith("maven-metadata.xml")) {
+            if (url.endsWith("maven-metadata.xml") && !Paths.get(baseDir.getAbsolutePath(), request.getPathInfo()).toFile().exists()) {
                 response.setContentType("application/xml");
                 response.setStatus(HttpServletResponse.SC_OK);
                 response.getWriter().println("" +
@@ -341,6 +1263,18 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
 
         }
 
+        public int countRequests(String suffix) {
+            int count = 0;
+            synchronized (requestedUris) {
+                for (String uri : requestedUris) {
+                    if (uri.endsWith(suffix)) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
         private String getContentType(String extension) {
             switch (extension) {
                 case "xml": return "text/xml";
@@ -368,4 +1302,30 @@ public class GetSourcesMojoTest extends AbstractMojoTestCase {
         }
     }
 
-}
\ No newline at end of file
+    public static class FlakyServlet extends NexusServlet {
+
+        private final Set<String> failedOnce = Collections.synchronizedSet(new HashSet<String>());
+
+        public FlakyServlet(File baseDir) {
+            super(baseDir);
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+            if (request.getRequestURI().endsWith("-sources.jar") && failedOnce.add(request.getRequestURI())) {
+                response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+                return;
+            }
+            super.doGet(request, response);
+        }
+    }
+
+    public static class BrokenServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+            response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+        }
+    }
+
+}